@@ -10,3 +10,63 @@ plugins {
     java
 }
 
+repositories {
+    mavenCentral()
+}
+
+/*
+ * JMH benchmarks live in their own source set (src/jmh/java) so they never end up on the application classpath.
+ *
+ *   gradle jmh                                  run every benchmark with the GC allocation profiler
+ *   gradle jmh -Pjmh.include=CPUBenchmark       run benchmarks matching a regex
+ *   gradle jmh -Pjmh.args="-f 1 -wi 2 -i 3"     pass extra options straight to JMH
+ */
+val jmhVersion = "1.37"
+
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+dependencies {
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+}
+
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks with the gc profiler (gc.alloc.rate.norm)."
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    jvmArgs("-Djava.awt.headless=true")
+    val include = providers.gradleProperty("jmh.include").orNull
+    val extra = providers.gradleProperty("jmh.args").orNull
+    args(listOfNotNull(include) + listOf("-prof", "gc", "-rf", "json", "-rff", "build/jmh-result.json"))
+    if (extra != null) {
+        args(extra.split(" ").filter { it.isNotBlank() })
+    }
+}
+
+/*
+ * Golden-frame regression tests (src/test) run every ROM in src/test/resources/golden in each execution mode and
+ * compare framebuffer hashes at checkpoints against golden/frames.txt.
+ *
+ *   gradle test                                 run them
+ *   gradle test -Pgolden.update=true            rewrite frames.txt from the interpreter after an intended change
+ */
+tasks.test {
+    useJUnitPlatform()
+    jvmArgs("-Djava.awt.headless=true")
+    systemProperty("golden.update", providers.gradleProperty("golden.update").getOrElse("false"))
+}
+
+// keep the benchmarks compiling alongside the main sources
+tasks.named("check") {
+    dependsOn("jmhClasses")
+}
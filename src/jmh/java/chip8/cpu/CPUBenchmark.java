@@ -0,0 +1,49 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-instruction cost of {@code CPU.emulateCycle} for each opcode family and execution mode, with no listeners
+ * attached.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Roms.LOOP_CYCLES)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CPUBenchmark {
+
+    // -------------------- Private Variables --------------------
+
+    @Param({ "6XNN", "7XNN", "8XY4", "3XNN", "ANNN", "DXYN", "FX1E", "FX33", "FX55", "FX65", "2NNN" })
+    private String family;
+
+    @Param({ "INTERPRETER", "BLOCK_CACHE", "RECOMPILER" })
+    private ExecutionMode mode;
+
+    private CPU cpu;
+
+    // -------------------- Public Methods --------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Roms.Rom rom = Roms.forFamily(family);
+        cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        cpu.setExecutionMode(mode);
+        cpu.load(rom.image());
+        cpu.runCycles(rom.setupCycles());
+    }
+
+    @Benchmark
+    public ExecutionResult emulateCycle() {
+        return cpu.runCycles(Roms.LOOP_CYCLES);
+    }
+}
@@ -0,0 +1,61 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of a program that spends nearly every frame polling the delay timer, through {@link CPU#runFrames(int)}
+ * (which fast-forwards the polling frames) and through one {@link CPU#runFrame()} per frame (which executes them).
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(DelayPollBenchmark.FRAMES)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DelayPollBenchmark {
+
+    // -------------------- Default Statics --------------------
+
+    static final int FRAMES = Roms.DELAY_POLL_FRAMES * 5;
+
+    // -------------------- Private Variables --------------------
+
+    @Param({ "INTERPRETER", "BLOCK_CACHE", "RECOMPILER" })
+    private ExecutionMode mode;
+
+    @Param({ "8", "1000" })
+    private int cyclesPerFrame;
+
+    private CPU cpu;
+
+    // -------------------- Public Methods --------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        cpu.setExecutionMode(mode);
+        cpu.setCyclesPerFrame(cyclesPerFrame);
+        cpu.load(Roms.delayPollFrames());
+    }
+
+    @Benchmark
+    public ExecutionResult runFrames() {
+        return cpu.runFrames(FRAMES);
+    }
+
+    @Benchmark
+    public ExecutionResult runFrameByFrame() {
+        ExecutionResult result = ExecutionResult.OK;
+        for (int i = 0; i < FRAMES; i++) {
+            result = cpu.runFrame();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.RenderListener;
+import chip8.hardware.VirtualKeypad;
+import chip8.ui.DebuggerListener;
+import chip8.ui.MachineState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-instruction cost of running with a debugger attached (sampled once per refresh) and of the
+ * {@code fireRenderNeeded} path. Compare against {@link CPUBenchmark} for the same opcode family to get the listener
+ * overhead.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Roms.LOOP_CYCLES)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerBenchmark {
+
+    // -------------------- Private Variables --------------------
+
+    private CPU debuggerCpu;
+    private CPU renderCpu;
+
+    // -------------------- Public Methods --------------------
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+        Roms.Rom registerRom = Roms.forFamily("6XNN");
+        debuggerCpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        debuggerCpu.addDebuggerListener(new DebuggerListener() {
+            @Override
+            public void machineStateChanged(MachineState currentState) {
+                bh.consume(currentState);
+            }
+        });
+        debuggerCpu.load(registerRom.image());
+        debuggerCpu.runCycles(registerRom.setupCycles());
+        debuggerCpu.setCyclesPerFrame(Roms.LOOP_CYCLES);
+
+        Roms.Rom spriteRom = Roms.forFamily("DXYN");
+        renderCpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        renderCpu.addRenderListener(new RenderListener() {
+            @Override
+            public void render(boolean[][] graphicsMemory) {
+                bh.consume(graphicsMemory);
+            }
+
+            @Override
+            public void render(long[] packedFrame) {
+                bh.consume(packedFrame);
+            }
+        });
+        renderCpu.load(spriteRom.image());
+        renderCpu.runCycles(spriteRom.setupCycles());
+        renderCpu.setCyclesPerFrame(Roms.LOOP_CYCLES);
+    }
+
+    @Benchmark
+    public ExecutionResult debuggerAttached() {
+        return debuggerCpu.runFrame();
+    }
+
+    @Benchmark
+    public ExecutionResult renderNeeded() {
+        return renderCpu.runFrame();
+    }
+}
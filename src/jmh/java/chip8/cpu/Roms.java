@@ -0,0 +1,109 @@
+package chip8.cpu;
+
+/**
+ * Builds synthetic ROMs that spend nearly all of their cycles in a single opcode family.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class Roms {
+
+    // -------------------- Statics --------------------
+
+    static final int LOOP_BODY = 1024;
+    // one pass round any of the loops: the body plus the jump back to its start
+    static final int LOOP_CYCLES = LOOP_BODY + 1;
+    static final int DELAY_POLL_FRAMES = 120;
+
+    // -------------------- Default Static Methods --------------------
+
+    /**
+     * The ROM executes {@code prefix} once, then loops forever over {@link #LOOP_BODY} cycles of the family's opcode
+     * followed by a single jump back to the start of the loop, {@link #LOOP_CYCLES} cycles in all.
+     */
+    static Rom forFamily(String family) {
+        return switch (family) {
+            case "6XNN" -> loop(new int[0], 0x6A42);
+            case "7XNN" -> loop(new int[0], 0x7A01);
+            case "8XY4" -> loop(new int[] { 0x60FF, 0x6101 }, 0x8014);
+            case "3XNN" -> loop(new int[0], 0x3A77);
+            case "ANNN" -> loop(new int[0], 0xA300);
+            case "DXYN" -> loop(new int[] { 0xA000 }, 0xD015);
+            case "FX1E" -> loop(new int[0], 0xF01E);
+            case "FX33" -> loop(new int[] { 0xAE00, 0x6AFF }, 0xFA33);
+            case "FX55" -> loop(new int[] { 0xAE00 }, 0xFF55);
+            case "FX65" -> loop(new int[] { 0xAE00 }, 0xFF65);
+            case "2NNN" -> callLoop();
+            default -> throw new IllegalArgumentException("Unknown opcode family: " + family);
+        };
+    }
+
+    /**
+     * As {@link #forFamily(String)}, but the loop body repeats a sequence of opcodes that the interpreter fuses.
+     */
+    static Rom forSuperinstruction(Superinstruction superinstruction) {
+        return switch (superinstruction) {
+            case LOAD_AND_DRAW -> loop(new int[0], 0xA000, 0xD015);
+            case LOAD_RUN -> loop(new int[0], 0x6042, 0x6143, 0x6244, 0x6345);
+            case ADD_AND_SKIP -> loop(new int[0], 0x7A01, 0x3B01);
+            case DELAY_POLL -> delayPoll();
+        };
+    }
+
+    /**
+     * A program that sets the delay timer to {@link #DELAY_POLL_FRAMES} and polls it until it expires, forever: one
+     * frame in {@link #DELAY_POLL_FRAMES} does real work, the others only poll.
+     */
+    static byte[] delayPollFrames() {
+        return toBytes(new int[] { 0x6000 | DELAY_POLL_FRAMES, 0xF015, 0xF007, 0x3000, 0x1204, 0x1200 });
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static Rom loop(int[] prefix, int... pattern) {
+        int loopStart = 0x200 + prefix.length * 2;
+        int[] words = new int[prefix.length + LOOP_BODY + 1];
+        System.arraycopy(prefix, 0, words, 0, prefix.length);
+        for (int i = 0; i < LOOP_BODY; i++) {
+            words[prefix.length + i] = pattern[i % pattern.length];
+        }
+        words[words.length - 1] = 0x1000 | loopStart;
+        return new Rom(toBytes(words), prefix.length);
+    }
+
+    private static Rom callLoop() {
+        // 2NNN/00EE pairs: each call executes two cycles, so with the jump back a pass is LOOP_CYCLES as well
+        int calls = LOOP_BODY / 2;
+        int subroutine = 0x200 + (calls + 1) * 2;
+        int[] words = new int[calls + 2];
+        for (int i = 0; i < calls; i++) {
+            words[i] = 0x2000 | subroutine;
+        }
+        words[calls] = 0x1200;
+        words[calls + 1] = 0x00EE;
+        return new Rom(toBytes(words), 0);
+    }
+
+    private static Rom delayPoll() {
+        // runCycles never ticks the timers, so the poll spins for every measured cycle and this measures the fused
+        // poll itself; runFrames fast-forwards whole frames of the same loop instead, see DelayPollBenchmark
+        int[] words = { 0x6078, 0xF015, 0xF007, 0x3000, 0x1204 };
+        return new Rom(toBytes(words), 2);
+    }
+
+    private static byte[] toBytes(int[] words) {
+        byte[] bytes = new byte[words.length * 2];
+        for (int i = 0; i < words.length; i++) {
+            bytes[i * 2] = (byte) (words[i] >> 8);
+            bytes[i * 2 + 1] = (byte) words[i];
+        }
+        return bytes;
+    }
+
+    // -------------------- Inner Classes --------------------
+
+    record Rom(byte[] image, int setupCycles) {}
+
+    // -------------------- Constructors --------------------
+
+    private Roms() {}
+}
@@ -0,0 +1,48 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-instruction cost of the interpreter on fusable opcode sequences, with superinstructions on and off.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Roms.LOOP_CYCLES)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuperinstructionBenchmark {
+
+    // -------------------- Private Variables --------------------
+
+    @Param({ "LOAD_AND_DRAW", "LOAD_RUN", "ADD_AND_SKIP", "DELAY_POLL" })
+    private Superinstruction pattern;
+
+    @Param({ "true", "false" })
+    private boolean fused;
+
+    private CPU cpu;
+
+    // -------------------- Public Methods --------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Roms.Rom rom = Roms.forSuperinstruction(pattern);
+        cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        cpu.setSuperinstructions(fused);
+        cpu.load(rom.image());
+        cpu.runCycles(rom.setupCycles());
+    }
+
+    @Benchmark
+    public ExecutionResult emulateCycle() {
+        return cpu.runCycles(Roms.LOOP_CYCLES);
+    }
+}
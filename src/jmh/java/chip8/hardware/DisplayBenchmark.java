@@ -0,0 +1,69 @@
+package chip8.hardware;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting a full frame and a frame where a single row changed into the display's 64x32 pixel array, and of
+ * scaling that image up in one {@code drawImage}, all off-screen so it runs without a display.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisplayBenchmark {
+
+    // -------------------- Private Variables --------------------
+
+    private final long[] frame = new long[32];
+    private final ColorPalette palette = Palettes.ALL_PALETTES.get(0);
+    private final BufferedImage frameImage = new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB);
+    private final int[] pixels = ((DataBufferInt) frameImage.getRaster().getDataBuffer()).getData();
+    private BufferedImage image;
+    private Graphics2D g2d;
+
+    // -------------------- Public Methods --------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rng = new Random(42);
+        for (int y = 0; y < frame.length; y++) {
+            frame[y] = rng.nextLong();
+        }
+        image = new BufferedImage(640, 320, BufferedImage.TYPE_INT_RGB);
+        g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g2d.dispose();
+    }
+
+    @Benchmark
+    public int[] paintFullFrame() {
+        Display.paintRows(pixels, frame, -1, palette.onPixel().getRGB(), palette.offPixel().getRGB());
+        return pixels;
+    }
+
+    @Benchmark
+    public int[] paintOneDirtyRow() {
+        Display.paintRows(pixels, frame, 1 << 16, palette.onPixel().getRGB(), palette.offPixel().getRGB());
+        return pixels;
+    }
+
+    @Benchmark
+    public BufferedImage presentScaled() {
+        g2d.drawImage(frameImage, 0, 0, 640, 320, null);
+        return image;
+    }
+}
@@ -0,0 +1,51 @@
+package chip8.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of copying the framebuffer, as done for every render notification, in both the legacy and packed layouts.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilitiesBenchmark {
+
+    // -------------------- Private Variables --------------------
+
+    private final boolean[][] frame = new boolean[32][64];
+    private final boolean[][] target = new boolean[32][64];
+    private final long[] packedFrame = new long[32];
+
+    // -------------------- Public Methods --------------------
+
+    @Benchmark
+    public boolean[][] arrayCopyFramebuffer() {
+        Utilities.arrayCopy(frame, target);
+        return target;
+    }
+
+    @Benchmark
+    public boolean[][] allocateAndCopyFramebuffer() {
+        boolean[][] copy = new boolean[32][64];
+        Utilities.arrayCopy(frame, copy);
+        return copy;
+    }
+
+    @Benchmark
+    public long[] clonePackedFramebuffer() {
+        return packedFrame.clone();
+    }
+
+    @Benchmark
+    public boolean[][] unpackFramebuffer() {
+        Utilities.unpackFrame(packedFrame, target);
+        return target;
+    }
+}
@@ -1,6 +1,7 @@
 package chip8;
 
 import chip8.cpu.CPU;
+import chip8.cpu.SaveState;
 import chip8.hardware.Display;
 import chip8.hardware.Keyboard;
 import chip8.hardware.PCSpeaker;
@@ -15,6 +16,8 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  *
@@ -40,9 +43,9 @@ final class CHIP8Emulator {
         JPanel displayPanel = new JPanel(new BorderLayout());
         Display view = new Display(frame, cpu);
 
-        JPanel displayBorder = new JPanel();
+        JPanel displayBorder = new JPanel(new BorderLayout());
         displayBorder.setBorder(new EmptyBorder(4, 4, 4, 4));
-        displayBorder.add(view);
+        displayBorder.add(view, BorderLayout.CENTER);
         displayPanel.add(displayBorder, BorderLayout.CENTER);
 
         ControlsView controlsView = new ControlsView(cpu);
@@ -52,6 +55,14 @@ final class CHIP8Emulator {
             public void colorPaletteChanged(ColorPalette selectedPalette) {
                 view.setColorPalette(selectedPalette);
             }
+
+            @Override
+            public void turboChanged(boolean turbo) {
+                // turbo produces far more frames than the screen can show, report how presentation kept up
+                if (!turbo) {
+                    System.out.println("Display: " + view.presentationReport());
+                }
+            }
         });
         displayPanel.add(controlsView, BorderLayout.SOUTH);
         mainPanel.add(displayPanel, BorderLayout.CENTER);
@@ -75,7 +86,7 @@ final class CHIP8Emulator {
         frame.setSize(1024, 520);
         frame.getContentPane().setLayout(new BorderLayout());
         frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
-        frame.setResizable(false);
+        frame.setResizable(true);
         frame.pack();
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
@@ -88,10 +99,14 @@ final class CHIP8Emulator {
         PCSpeaker speaker = new PCSpeaker();
         CPU cpu = new CPU(keyboard, speaker);
 
+        // CPU commands only queue work for the emulation thread, so they are called straight from the EDT: going
+        // through the background pool could reorder them (stop and start, turbo on and off, pause and step)
         ControlsListener listener = new ControlsListener() {
+            private volatile File currentRom;
+
             @Override
             public void shouldEndWait() {
-                Utilities.invokeInBackground(cpu::endWait);
+                cpu.endWait();
             }
             @Override
             public void setVolume(double volume) {
@@ -100,20 +115,43 @@ final class CHIP8Emulator {
 
             @Override
             public void shouldWaitChanged(boolean shouldWait) {
-                Utilities.invokeInBackground(() -> cpu.setShouldWait(shouldWait));
+                cpu.setShouldWait(shouldWait);
             }
 
             @Override
             public void romSelected(File romFile) {
-                Utilities.invokeInBackground(() -> cpu.start(romFile));
+                currentRom = romFile;
+                cpu.start(romFile);
+            }
+            @Override
+            public void saveStateRequested(int slot) {
+                Path path = Props.getSaveStatePath(currentRom, slot);
+                cpu.requestSnapshot(state -> Utilities.invokeInBackground(() -> state.write(path)));
+            }
+            @Override
+            public void rewindChanged(boolean rewinding) {
+                cpu.setRewinding(rewinding);
+            }
+            @Override
+            public void loadStateRequested(int slot) {
+                Path path = Props.getSaveStatePath(currentRom, slot);
+                Utilities.invokeInBackground(() -> {
+                    if (Files.exists(path)) {
+                        cpu.requestRestore(SaveState.read(path));
+                    }
+                });
             }
             @Override
             public void stopEmulator() {
-                Utilities.invokeInBackground(cpu::stop);
+                cpu.stop();
             }
             @Override
             public void cpuSpeedChanged(int cpuTickHz) {
-                Utilities.invokeInBackground(() -> cpu.setCpuClock(cpuTickHz));
+                cpu.setCpuClock(cpuTickHz);
+            }
+            @Override
+            public void turboChanged(boolean turbo) {
+                cpu.setTurbo(turbo);
             }
         };
 
@@ -38,6 +38,7 @@ public final class Props {
     private static final String SELECTED_PALETTE_KEY = "selectedColorPaletteId";
     private static final String CURRENT_VOLUME_KEY = "currentVolume";
     private static final String CPU_CLOCK_SPEED_KEY = "cpuSpeedInHz";
+    private static final String REWIND_BUFFER_MB_KEY = "rewindBufferInMB";
 
     // -------------------- Public Statics --------------------
 
@@ -98,6 +99,39 @@ public final class Props {
         PROPS.setProperty(CPU_CLOCK_SPEED_KEY, String.valueOf(cpuSpeedHz));
     }
 
+    /**
+     * Memory set aside for rewind history, in bytes. Only read from the properties file; at the default 16 MB a
+     * typical ROM keeps several minutes.
+     */
+    public static int getSavedRewindBufferSize() {
+        String stringValue = PROPS.getProperty(REWIND_BUFFER_MB_KEY, "16");
+        int val = 16;
+        try {
+            val = Integer.parseInt(stringValue);
+        } catch (NumberFormatException ignored) {}
+        return Math.max(1, Math.min(val, 1024)) * 1024 * 1024;
+    }
+
+    /**
+     * Where save state {@code slot} of the given ROM is kept.
+     */
+    public static Path getSaveStatePath(File romFile, int slot) {
+        return getUserDataPath()
+                .resolve("chip8")
+                .resolve("states")
+                .resolve("%s.%d.state".formatted(romFile.getName(), slot));
+    }
+
+    /**
+     * Where the input log of the last session of the given ROM is kept.
+     */
+    public static Path getInputLogPath(File romFile) {
+        return getUserDataPath()
+                .resolve("chip8")
+                .resolve("replays")
+                .resolve("%s.input".formatted(romFile.getName()));
+    }
+
     // -------------------- Default Static Methods --------------------
 
     static void writeProperties() {
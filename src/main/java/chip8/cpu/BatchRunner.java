@@ -0,0 +1,275 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import chip8.util.Utilities;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many ROMs headless at once, each on its own {@link CPU} with a {@link VirtualKeypad} and no audio, spread over
+ * a pool with one worker per core. Given a directory every {@code .ch8} file in it is run; given one ROM and input
+ * logs (see {@link CPU#recordInput(InputLog)}) the ROM is replayed once per log. Every run stops at the first of: the
+ * program ending, its instruction budget, the end of its input log, or its time budget. Runs execute whole frames
+ * only, so a run stops short of its instruction budget once less than a frame's worth is left. A watchdog reports runs
+ * that do not come back within a grace period after their own time budget as hung, interrupts them and adds a worker
+ * in their place, so the runs queued behind them still get theirs.
+ * <p>
+ * Prints one line per run, in input order, with the exit reason, instructions and frames executed and the CRC-32 of
+ * the final framebuffer (or why the run failed), then a summary. Runs without an input log seed the random number
+ * generator with {@code --seed}, so the same batch gives the same hashes every time. {@link ExecutionMode#STATIC} is
+ * not supported, since it needs a program generated and compiled for each ROM ahead of time.
+ * <pre>
+ *   java -cp build/classes/java/main chip8.cpu.BatchRunner roms/ [--cycles 10000000] [--seconds 10] [--cpf 8]
+ *       [--mode RECOMPILER] [--threads 8] [--seed 0]
+ *   java -cp build/classes/java/main chip8.cpu.BatchRunner pong.ch8 a.input b.input ...
+ * </pre>
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class BatchRunner {
+
+    // -------------------- Private Statics --------------------
+
+    private static final int FRAMES_PER_SLICE = 60;
+    private static final long WATCHDOG_GRACE_NANOS = 2_000_000_000L;
+
+    // -------------------- Main Method --------------------
+
+    public static void main(String[] args) throws InterruptedException {
+        List<String> inputs = new ArrayList<>();
+        long cycleBudget = 10_000_000;
+        long timeBudgetNanos = 10_000_000_000L;
+        int cyclesPerFrame = 8;
+        ExecutionMode mode = ExecutionMode.INTERPRETER;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                inputs.add(args[i]);
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--cycles" -> cycleBudget = Long.parseLong(value);
+                case "--seconds" -> timeBudgetNanos = (long) (Double.parseDouble(value) * 1e9);
+                case "--cpf" -> cyclesPerFrame = Integer.parseInt(value);
+                case "--mode" -> mode = parseMode(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i - 1]);
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: BatchRunner <rom dir> | <rom.ch8> [input logs...] [--cycles N] [--seconds S]"
+                    + " [--cpf N] [--mode INTERPRETER|BLOCK_CACHE|RECOMPILER] [--threads N] [--seed N]");
+            System.exit(2);
+        }
+
+        List<Job> jobs = createJobs(inputs, new Budget(cycleBudget, timeBudgetNanos, cyclesPerFrame, mode, seed));
+        // unlike a ForkJoinPool, cancelling one of its futures interrupts the worker running it
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    // a hung run must not keep the JVM alive once the batch is reported
+                    Thread thread = new Thread(runnable, "batch-run");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        long start = System.nanoTime();
+        List<Future<Result>> futures = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            futures.add(pool.submit(job::run));
+        }
+
+        Map<Exit, Integer> exits = new EnumMap<>(Exit.class);
+        long instructions = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            Result result = await(jobs.get(i), futures.get(i), timeBudgetNanos, pool);
+            exits.merge(result.exit(), 1, Integer::sum);
+            instructions += result.instructions();
+            System.out.println(result.format());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d runs on %d threads in %.2f s, %.2f MIPS aggregate, %s%n",
+                jobs.size(), threads, seconds, instructions / seconds / 1e6, exits);
+        pool.shutdownNow();
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static ExecutionMode parseMode(String value) {
+        ExecutionMode mode = ExecutionMode.valueOf(value);
+        if (mode == ExecutionMode.STATIC) {
+            throw new IllegalArgumentException("STATIC needs a program generated for each ROM by StaticRecompiler"
+                    + " and cannot be used for batch runs; use RECOMPILER instead.");
+        }
+        return mode;
+    }
+
+    private static List<Job> createJobs(List<String> inputs, Budget budget) {
+        File first = new File(inputs.get(0));
+        List<Job> jobs = new ArrayList<>();
+        if (first.isDirectory()) {
+            File[] roms = first.listFiles((dir, name) -> name.toLowerCase().endsWith(".ch8"));
+            if (roms == null || roms.length == 0) {
+                throw new RuntimeException("No .ch8 files in '%s'.".formatted(first.toPath()));
+            }
+            Arrays.sort(roms);
+            for (File rom : roms) {
+                jobs.add(new Job(rom.getName(), Utilities.readBytes(rom), null, budget));
+            }
+            return jobs;
+        }
+        if (!first.exists()) {
+            throw new RuntimeException("File '%s' not found!".formatted(first.toPath()));
+        }
+        byte[] rom = Utilities.readBytes(first);
+        if (inputs.size() == 1) {
+            jobs.add(new Job(first.getName(), rom, null, budget));
+        }
+        for (String logPath : inputs.subList(1, inputs.size())) {
+            InputLog log = InputLog.read(Path.of(logPath));
+            jobs.add(new Job(first.getName() + " < " + new File(logPath).getName(), rom, log, budget));
+        }
+        return jobs;
+    }
+
+    private static Result await(Job job, Future<Result> future, long timeBudgetNanos, ThreadPoolExecutor pool)
+            throws InterruptedException {
+        while (true) {
+            // a queued run has not used any of its budget yet: its deadline counts from when it starts
+            long started = job.startNanos();
+            long wait = started == Job.NOT_STARTED
+                    ? WATCHDOG_GRACE_NANOS
+                    : started + timeBudgetNanos + WATCHDOG_GRACE_NANOS - System.nanoTime();
+            try {
+                return future.get(Math.max(0, wait), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (started == Job.NOT_STARTED) {
+                    continue;
+                }
+                future.cancel(true);
+                // the worker may never come back: give the runs queued behind it another one
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+                pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+                return new Result(job.name(), Exit.HUNG, 0, 0, 0, System.nanoTime() - started, null);
+            } catch (ExecutionException e) {
+                return new Result(job.name(), Exit.FATAL, 0, 0, 0, 0, String.valueOf(e.getCause()));
+            }
+        }
+    }
+
+    // -------------------- Inner Classes --------------------
+
+    private enum Exit {
+        /** The program ran off the end of memory or into an empty instruction. */
+        END_PROGRAM,
+        /** The run threw. */
+        FATAL,
+        /** The instruction budget was used up. */
+        CYCLE_BUDGET,
+        /** The time budget was used up. */
+        TIME_BUDGET,
+        /** The input log ended. */
+        LOG_END,
+        /** The run did not come back within the grace period after its time budget. */
+        HUNG
+    }
+
+    private record Budget(long cycles, long timeNanos, int cyclesPerFrame, ExecutionMode mode, long seed) {}
+
+    /**
+     * @param failure why the run threw, or null
+     */
+    private record Result(String name, Exit exit, long instructions, long frames, long framebufferHash, long nanos,
+                          String failure) {
+        String format() {
+            String line = "%-40s %-12s %12d instructions %9d frames  frame %08x  %8.1f ms"
+                    .formatted(name, exit, instructions, frames, framebufferHash, nanos / 1e6);
+            return failure == null ? line : line + "  " + failure;
+        }
+    }
+
+    private record Job(String name, byte[] rom, InputLog log, Budget budget, AtomicLong started) {
+        static final long NOT_STARTED = Long.MIN_VALUE;
+
+        Job(String name, byte[] rom, InputLog log, Budget budget) {
+            this(name, rom, log, budget, new AtomicLong(NOT_STARTED));
+        }
+
+        long startNanos() {
+            return started.get();
+        }
+
+        Result run() {
+            long start = System.nanoTime();
+            started.set(start);
+            long deadline = start + budget.timeNanos();
+            CPU cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+            cpu.setExecutionMode(budget.mode());
+            cpu.setCyclesPerFrame(budget.cyclesPerFrame());
+            ExecutionProfile profile = new ExecutionProfile();
+            cpu.setExecutionProfile(profile);
+
+            Exit exit = null;
+            String failure = null;
+            try {
+                cpu.load(rom);
+                if (log != null) {
+                    cpu.replayInput(log);
+                } else {
+                    cpu.setRandomSeed(budget.seed());
+                }
+                while (exit == null) {
+                    if (budget.cycles() - profile.getInstructions() < cpu.getCyclesPerFrame()) {
+                        // not enough left for another whole frame
+                        exit = Exit.CYCLE_BUDGET;
+                    } else if (log != null && cpu.getFrameCount() >= log.getFrames()) {
+                        exit = Exit.LOG_END;
+                    } else if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                        exit = Exit.TIME_BUDGET;
+                    } else if (cpu.runFrames(slice(cpu, profile)) != ExecutionResult.OK) {
+                        exit = Exit.END_PROGRAM;
+                    }
+                }
+            } catch (RuntimeException e) {
+                exit = Exit.FATAL;
+                failure = e.toString();
+            }
+
+            long[] frame = new long[32];
+            cpu.copyFrame(frame);
+            return new Result(name, exit, profile.getInstructions(), cpu.getFrameCount(), Utilities.hashFrame(frame),
+                    System.nanoTime() - start, failure);
+        }
+
+        private int slice(CPU cpu, ExecutionProfile profile) {
+            // whole frames only, never past the instruction budget or the end of the log; a replayed event may change
+            // the cycles per frame, so a slice also ends at the next one and the budget is worked out again
+            long frames = (budget.cycles() - profile.getInstructions()) / cpu.getCyclesPerFrame();
+            if (log != null) {
+                frames = Math.min(frames, Math.max(1, log.nextEventFrame() - cpu.getFrameCount()));
+                if (log.getFrames() >= 0) {
+                    frames = Math.min(frames, log.getFrames() - cpu.getFrameCount());
+                }
+            }
+            return (int) Math.min(FRAMES_PER_SLICE, frames);
+        }
+    }
+}
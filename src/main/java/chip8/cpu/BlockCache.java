@@ -0,0 +1,154 @@
+package chip8.cpu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Cache of straight-line basic blocks keyed by start address. A block runs until (and including) the first
+ * instruction that can change the program counter or write memory, so everything before the last instruction is
+ * known to fall through. Memory writes invalidate every block overlapping the written pages, which also discards
+ * any bytecode compiled for them and sends execution back through the bound handlers.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class BlockCache {
+
+    // -------------------- Statics --------------------
+
+    static final int MAX_BLOCK_LENGTH = 64;
+    static final int PAGE_SIZE = 64;
+
+    // -------------------- Private Variables --------------------
+
+    private final int[] decoded;
+    private final IntFunction<Runnable> binder;
+    private final Block[] blocks;
+
+    // -------------------- Constructors --------------------
+
+    BlockCache(int[] decoded, IntFunction<Runnable> binder) {
+        this.decoded = decoded;
+        this.binder = binder;
+        this.blocks = new Block[decoded.length];
+    }
+
+    // -------------------- Default Methods --------------------
+
+    /**
+     * Returns the block starting at {@code address}, translating it on first use. Returns {@code null} when the first
+     * instruction cannot be part of a block (an empty or invalid opcode), in which case the caller must interpret it.
+     */
+    Block lookup(int address) {
+        Block block = blocks[address];
+        if (block == null) {
+            block = translate(address);
+            blocks[address] = block;
+        }
+        return block;
+    }
+
+    void invalidate(int from, int to) {
+        int firstPage = Math.max(0, from) / PAGE_SIZE;
+        int lastPage = Math.min(blocks.length - 1, to) / PAGE_SIZE;
+        int rangeStart = firstPage * PAGE_SIZE;
+        int rangeEnd = (lastPage + 1) * PAGE_SIZE;
+        int scanStart = Math.max(0, rangeStart - MAX_BLOCK_LENGTH * 2);
+        int scanEnd = Math.min(blocks.length, rangeEnd);
+        for (int address = scanStart; address < scanEnd; address++) {
+            Block block = blocks[address];
+            if (block != null && address + block.length() * 2 > rangeStart) {
+                blocks[address] = null;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(blocks, null);
+    }
+
+    // -------------------- Private Methods --------------------
+
+    private Block translate(int start) {
+        List<Runnable> ops = new ArrayList<>();
+        int[] instructions = new int[MAX_BLOCK_LENGTH];
+        int address = start;
+        while (ops.size() < MAX_BLOCK_LENGTH && address < decoded.length - 1) {
+            int instruction = decoded[address];
+            int handler = Decoder.handler(instruction);
+            if (handler == Decoder.EMPTY || handler == Decoder.INVALID) {
+                break;
+            }
+            instructions[ops.size()] = instruction;
+            ops.add(binder.apply(instruction));
+            address += 2;
+            if (endsBlock(handler)) {
+                break;
+            }
+        }
+        if (ops.isEmpty()) {
+            return null;
+        }
+        return new Block(start, ops.toArray(new Runnable[0]), Arrays.copyOf(instructions, ops.size()));
+    }
+
+    static boolean endsBlock(int handler) {
+        return switch (handler) {
+            // control flow
+            case Decoder.OP_00EE, Decoder.OP_1NNN, Decoder.OP_2NNN, Decoder.OP_BNNN,
+                 Decoder.OP_3XNN, Decoder.OP_4XNN, Decoder.OP_5XY0, Decoder.OP_9XY0,
+                 Decoder.OP_EX9E, Decoder.OP_EXA1, Decoder.OP_FX0A -> true;
+            // memory stores, so invalidation is seen before the next dispatch
+            case Decoder.OP_FX33, Decoder.OP_FX55 -> true;
+            default -> false;
+        };
+    }
+
+    // -------------------- Inner Classes --------------------
+
+    static final class Block {
+
+        private final int start;
+        private final Runnable[] ops;
+        private final int[] instructions;
+
+        // recompilation state, see BlockCompiler
+        private int executions;
+        private CompiledBlock compiled;
+
+        private Block(int start, Runnable[] ops, int[] instructions) {
+            this.start = start;
+            this.ops = ops;
+            this.instructions = instructions;
+        }
+
+        int start() {
+            return start;
+        }
+
+        int length() {
+            return ops.length;
+        }
+
+        Runnable[] ops() {
+            return ops;
+        }
+
+        int[] instructions() {
+            return instructions;
+        }
+
+        int countExecution() {
+            return ++executions;
+        }
+
+        CompiledBlock compiled() {
+            return compiled;
+        }
+
+        void setCompiled(CompiledBlock compiled) {
+            this.compiled = compiled;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package chip8.cpu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Translates a basic block into a hidden class whose {@code run} method executes the block's instructions in
+ * sequence. Register loads and stores, I loads and bitwise ops are emitted inline against {@link CPU}'s private fields,
+ * which the class can reach because it is defined as a nestmate of {@link CPU}; everything else becomes a direct call
+ * to the matching package-private handler with constant operands, which C2 inlines.
+ * <p>
+ * Blocks never branch internally (see {@link BlockCache}), so the emitted code is straight-line and needs no
+ * StackMapTable.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class BlockCompiler {
+
+    // -------------------- Private Statics --------------------
+
+    private static final String CPU_CLASS = "chip8/cpu/CPU";
+    private static final String BLOCK_INTERFACE = "chip8/cpu/CompiledBlock";
+    private static final int CLASS_VERSION = 61; // Java 17
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    // opcodes
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ALOAD_0 = 0x2A;
+    private static final int ALOAD_1 = 0x2B;
+    private static final int BALOAD = 0x33;
+    private static final int BASTORE = 0x54;
+    private static final int DUP2 = 0x5C;
+    private static final int IADD = 0x60;
+    private static final int IAND = 0x7E;
+    private static final int IOR = 0x80;
+    private static final int IXOR = 0x82;
+    private static final int I2B = 0x91;
+    private static final int RETURN = 0xB1;
+    private static final int GETFIELD = 0xB4;
+    private static final int PUTFIELD = 0xB5;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+
+    // only the first failure is reported, a broken emitter would otherwise report every hot block
+    private static final AtomicBoolean failureReported = new AtomicBoolean();
+
+    // -------------------- Private Variables --------------------
+
+    private final MethodHandles.Lookup lookup;
+
+    // -------------------- Constructors --------------------
+
+    BlockCompiler(MethodHandles.Lookup lookup) {
+        this.lookup = lookup;
+    }
+
+    // -------------------- Default Methods --------------------
+
+    /**
+     * Returns the compiled block, or {@code null} if the class could not be defined or instantiated, in which case the
+     * block keeps running through its bound handlers. The first such failure is reported on stderr, since it means
+     * the emitted bytecode is wrong.
+     */
+    CompiledBlock compile(int start, int[] instructions) {
+        byte[] classBytes = emitClass(start, instructions);
+        try {
+            MethodHandles.Lookup hidden = lookup.defineHiddenClass(classBytes, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+            return (CompiledBlock) hidden.lookupClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            if (!failureReported.getAndSet(true)) {
+                System.err.printf("Block at 0x%03X could not be compiled, running it through its handlers: %s%n",
+                        start, e);
+            }
+            return null;
+        }
+    }
+
+    // -------------------- Private Methods --------------------
+
+    private static byte[] emitClass(int start, int[] instructions) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef("chip8/cpu/CPU$Block%03X".formatted(start));
+        int superClass = pool.classRef("java/lang/Object");
+        int blockInterface = pool.classRef(BLOCK_INTERFACE);
+        int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+        int initName = pool.utf8("<init>");
+        int initDesc = pool.utf8("()V");
+        int runName = pool.utf8("run");
+        int runDesc = pool.utf8("(L" + CPU_CLASS + ";)V");
+        int codeName = pool.utf8("Code");
+
+        Code init = new Code();
+        init.op(ALOAD_0);
+        init.op(INVOKESPECIAL).u2(objectInit);
+        init.op(RETURN);
+
+        Code run = new Code();
+        for (int i = 0; i < instructions.length; i++) {
+            emitInstruction(run, pool, start + (i + 1) * 2, instructions[i]);
+        }
+        run.op(RETURN);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(blockInterface);
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+            writeMethod(out, initName, initDesc, codeName, init, 1, 1);
+            writeMethod(out, runName, runDesc, codeName, run, 8, 2);
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void emitInstruction(Code code, ConstantPool pool, int nextPc, int instruction) {
+        int x = Decoder.x(instruction);
+        int y = Decoder.y(instruction);
+        int n = Decoder.n(instruction);
+        int nn = Decoder.nn(instruction);
+        int nnn = Decoder.nnn(instruction);
+
+        // handlers expect the program counter to already point past them
+        code.op(ALOAD_1).push(nextPc).op(PUTFIELD).u2(pool.fieldRef(CPU_CLASS, "programCounter", "S"));
+
+        int vRegister = pool.fieldRef(CPU_CLASS, "vRegister", "[B");
+        switch (Decoder.handler(instruction)) {
+            case Decoder.OP_6XNN -> {
+                code.op(ALOAD_1).op(GETFIELD).u2(vRegister).push(x).push((byte) nn).op(BASTORE);
+            }
+            case Decoder.OP_7XNN -> {
+                code.op(ALOAD_1).op(GETFIELD).u2(vRegister).push(x).op(DUP2).op(BALOAD)
+                        .push(nn).op(IADD).op(I2B).op(BASTORE);
+            }
+            case Decoder.OP_8XY0 -> {
+                code.op(ALOAD_1).op(GETFIELD).u2(vRegister).push(x)
+                        .op(ALOAD_1).op(GETFIELD).u2(vRegister).push(y).op(BALOAD).op(BASTORE);
+            }
+            case Decoder.OP_8XY1 -> emitBitwise(code, vRegister, x, y, IOR);
+            case Decoder.OP_8XY2 -> emitBitwise(code, vRegister, x, y, IAND);
+            case Decoder.OP_8XY3 -> emitBitwise(code, vRegister, x, y, IXOR);
+            case Decoder.OP_ANNN -> {
+                code.op(ALOAD_1).push(nnn).op(PUTFIELD).u2(pool.fieldRef(CPU_CLASS, "indexRegister", "S"));
+            }
+            case Decoder.OP_00E0 -> call(code, pool, "do00E0", "()V");
+            case Decoder.OP_00EE -> call(code, pool, "do00EE", "()V");
+            case Decoder.OP_0NNN -> call(code, pool, "do0NNN", "()V");
+            case Decoder.OP_1NNN -> call(code, pool, "do1X", "(I)V", nnn);
+            case Decoder.OP_2NNN -> call(code, pool, "do2X", "(I)V", nnn);
+            case Decoder.OP_3XNN -> call(code, pool, "do3X", "(II)V", nn, x);
+            case Decoder.OP_4XNN -> call(code, pool, "do4X", "(II)V", nn, x);
+            case Decoder.OP_5XY0 -> call(code, pool, "do5X", "(II)V", x, y);
+            case Decoder.OP_8XY4 -> call(code, pool, "do8XY4", "(II)V", x, y);
+            case Decoder.OP_8XY5 -> call(code, pool, "do8XY5", "(II)V", x, y);
+            case Decoder.OP_8XY6 -> call(code, pool, "do8XY6", "(I)V", x);
+            case Decoder.OP_8XY7 -> call(code, pool, "do8XY7", "(II)V", x, y);
+            case Decoder.OP_8XYE -> call(code, pool, "do8XYE", "(I)V", x);
+            case Decoder.OP_9XY0 -> call(code, pool, "do9X", "(II)V", x, y);
+            case Decoder.OP_BNNN -> call(code, pool, "doBX", "(I)V", nnn);
+            case Decoder.OP_CXNN -> call(code, pool, "doCX", "(II)V", nn, x);
+            case Decoder.OP_DXYN -> call(code, pool, "doDX", "(III)V", n, x, y);
+            case Decoder.OP_EX9E -> call(code, pool, "doEX9E", "(I)V", x);
+            case Decoder.OP_EXA1 -> call(code, pool, "doEXA1", "(I)V", x);
+            case Decoder.OP_FX07 -> call(code, pool, "doFX07", "(I)V", x);
+            case Decoder.OP_FX0A -> call(code, pool, "doFX0A", "(I)V", x);
+            case Decoder.OP_FX15 -> call(code, pool, "doFX15", "(I)V", x);
+            case Decoder.OP_FX18 -> call(code, pool, "doFX18", "(I)V", x);
+            case Decoder.OP_FX1E -> call(code, pool, "doFX1E", "(I)V", x);
+            case Decoder.OP_FX29 -> call(code, pool, "doFX29", "(I)V", x);
+            case Decoder.OP_FX33 -> call(code, pool, "doFX33", "(I)V", x);
+            case Decoder.OP_FX55 -> call(code, pool, "doFX55", "(I)V", x);
+            case Decoder.OP_FX65 -> call(code, pool, "doFX65", "(I)V", x);
+            default -> throw new IllegalArgumentException();
+        }
+    }
+
+    private static void emitBitwise(Code code, int vRegister, int x, int y, int opcode) {
+        code.op(ALOAD_1).op(GETFIELD).u2(vRegister).push(x).op(DUP2).op(BALOAD)
+                .op(ALOAD_1).op(GETFIELD).u2(vRegister).push(y).op(BALOAD)
+                .op(opcode).op(I2B).op(BASTORE);
+    }
+
+    private static void call(Code code, ConstantPool pool, String method, String descriptor, int... args) {
+        code.op(ALOAD_1);
+        for (int arg : args) {
+            code.push(arg);
+        }
+        code.op(INVOKEVIRTUAL).u2(pool.methodRef(CPU_CLASS, method, descriptor));
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeName, Code code,
+                                    int maxStack, int maxLocals) throws IOException {
+        byte[] body = code.toByteArray();
+        out.writeShort(ACC_PUBLIC);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + body.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(body.length);
+        out.write(body);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    // -------------------- Inner Classes --------------------
+
+    private static final class Code {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        Code push(int value) {
+            if (value >= -1 && value <= 5) {
+                return op(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                return op(BIPUSH).op(value & 0xFF);
+            } else {
+                return op(SIPUSH).u2(value & 0xFFFF);
+            }
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class ConstantPool {
+
+        private static final int UTF8 = 1;
+        private static final int CLASS = 7;
+        private static final int FIELD_REF = 9;
+        private static final int METHOD_REF = 10;
+        private static final int NAME_AND_TYPE = 12;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            return entry("U" + value, () -> {
+                out.writeByte(UTF8);
+                out.writeUTF(value);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, () -> {
+                out.writeByte(CLASS);
+                out.writeShort(name);
+            });
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return memberRef(FIELD_REF, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(METHOD_REF, owner, name, descriptor);
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            int ownerClass = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + ":" + descriptor, () -> {
+                out.writeByte(NAME_AND_TYPE);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return entry(tag + owner + "." + name + ":" + descriptor, () -> {
+                out.writeByte(tag);
+                out.writeShort(ownerClass);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int entry(String key, Writer writer) {
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.put(key, count);
+            return count++;
+        }
+
+        @FunctionalInterface
+        private interface Writer {
+            void write() throws IOException;
+        }
+    }
+}
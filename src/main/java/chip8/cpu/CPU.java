@@ -1,25 +1,42 @@
 package chip8.cpu;
 
 import chip8.Props;
-import chip8.hardware.ClockSimulator;
-import chip8.hardware.Keyboard;
-import chip8.hardware.PCSpeaker;
+import chip8.hardware.AudioDevice;
+import chip8.hardware.FrameScheduler;
+import chip8.hardware.InputDevice;
 import chip8.hardware.RenderListener;
 import chip8.ui.DebuggerListener;
 import chip8.ui.MachineState;
 import chip8.util.ByteMath;
 import chip8.util.Utilities;
 
-import javax.swing.event.EventListenerList;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
-import java.util.Random;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
-import static chip8.util.Utilities.arrayCopy;
+import static chip8.util.Utilities.unpackFrame;
 
 /**
+ * The CHIP-8 machine. Frames are published to {@link RenderListener}s at the 60 Hz frame boundary, only when the
+ * framebuffer changed. {@link DebuggerListener}s get a sampled snapshot at most once per 60 Hz refresh, and an event
+ * per instruction only while single-stepping; with no listeners registered neither costs anything.
+ * <p>
+ * It can be driven in two ways: headless, by calling {@link #load(byte[])} followed by {@link #runCycles(int)} or
+ * {@link #runFrame()} on the caller's thread, or by the GUI through {@link #start(File)}, which drives the same engine
+ * from a {@link FrameScheduler} running one batch of instructions per 60 Hz frame. In that mode the control methods
+ * ({@link #start(File)}, {@link #stop()}, {@link #setShouldWait(boolean)}, {@link #endWait()},
+ * {@link #setCpuClock(int)}, {@link #setTurbo(boolean)}) never block: they queue a command that the emulation thread
+ * applies between frames.
+ *
  * @author Scott Faria <scott.faria@protonmail.com>
  */
 public final class CPU {
@@ -47,8 +64,17 @@ public final class CPU {
     };
 
     private static final int DELAY_CLOCK_HZ = 60;
-
-    // -------------------- Private Methods --------------------
+    private static final int DEFAULT_CPU_CLOCK_HZ = 500;
+    private static final int PROGRAM_START = 512;
+    private static final long TURBO_REPORT_INTERVAL_NANOS = 1_000_000_000L;
+    private static final long IDLE_TIMEOUT_NANOS = 250_000_000L;
+    private static final long PARKED_TIMEOUT_NANOS = Long.MAX_VALUE;
+    private static final int TURBO_SLICE_FRAMES = 60;
+    private static final long DEBUGGER_SAMPLE_NANOS = 1_000_000_000L / DELAY_CLOCK_HZ;
+    private static final int DEFAULT_HOT_BLOCK_THRESHOLD = 1000;
+    private static final int REWIND_KEYFRAME_INTERVAL = DELAY_CLOCK_HZ;
+
+    // -------------------- Private Variables --------------------
 
     // registers and memory
     private byte[] memory = new byte[4096];
@@ -60,379 +86,1311 @@ public final class CPU {
     private short[] stack = new short[16];
     private short stackPointer = 0;
 
-    // graphics "memory"
-    private boolean[][] graphics = new boolean[32][64];
+    // instruction decoded at each address, see Decoder
+    private final int[] decoded = new int[4096];
+    private final BlockCache blockCache = new BlockCache(decoded, this::bind);
+
+    // superinstruction fused at each address, 0 if none, see Peephole
+    private final int[] fused = new int[4096];
+    private final long[] superinstructionHits = new long[Superinstruction.values().length];
+    private long compiledBlocks;
+    private boolean superinstructions = true;
+    private final BlockCompiler blockCompiler = new BlockCompiler(MethodHandles.lookup());
+    private ExecutionMode executionMode = ExecutionMode.INTERPRETER;
+    private int hotBlockThreshold = DEFAULT_HOT_BLOCK_THRESHOLD;
+    private StaticProgram staticProgram;
+    private boolean staticProgramMatches;
+    private long romChecksum = -1;
+
+    // one bit per 64-byte page written since the ROM was loaded
+    private long modifiedPages;
+
+    // graphics "memory", one 64-bit word per row with pixel 0 in the most significant bit
+    private final long[] graphics = new long[32];
 
     // timers
-    private short delayTimer = -1;
-    private short soundTimer = -1;
+    // the timers are kept as the 60 Hz tick at which each reaches zero and read lazily; timerTicks advances once per
+    // frame boundary, so timer values depend only on the instruction stream
+    private long timerTicks;
+    private long delayExpiry;
+    private long soundExpiry;
+    private boolean beeping;
+
+    // rows of the framebuffer changed since the last published frame, bit N for row N
+    private int dirtyRows;
+
+    // set by a handler that proved the program is in a loop of spinLength instructions that, until the next frame
+    // boundary, changes nothing but the program counter and registers it rewrites with the same values; the run loops
+    // then skip every whole iteration left in the batch and only execute the partial one
+    private int spinLength;
+    // the register the loop reloads from the delay timer on every iteration, or -1
+    private int spinRegister = -1;
+    // the loop waits for input or for nothing at all, so the thread may park once the timers have run out
+    private boolean idle;
+    // the batch ended inside the delay-timer poll starting at this address, or -1
+    private int delayPollAt = -1;
+
+    // rng, a SplitMix64 sequence so its whole state fits in a save state and a seed reproduces it
+    private long rngState = System.nanoTime();
+
+    // control plane: UI commands, applied by the emulation thread between frames
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+    private final List<DebuggerListener> debuggerListeners = new CopyOnWriteArrayList<>();
+    private long lastDebuggerSample;
+    private final List<RenderListener> renderListeners = new CopyOnWriteArrayList<>();
+    private final InputDevice keyboard;
+    private final AudioDevice speaker;
+    private final FrameScheduler frameClock;
+
+    private int cyclesPerFrame = DEFAULT_CPU_CLOCK_HZ / DELAY_CLOCK_HZ;
+
+    // emulation thread only
+    private boolean running;
+    private boolean halted;
+    private boolean wait;
+    private int pendingSteps;
 
-    // flags
-    private boolean renderFlag;
+    // instructions single-stepped since the last frame boundary
+    private int steppedCycles;
 
-    // rng
-    private final Random rng = new Random();
+    // turbo mode: frames run back to back, measured by profile (which may also be set for headless runs)
+    private boolean turbo;
+    private ExecutionProfile profile;
 
-    // general stuff
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
+    // history of the frames run by the emulation thread, created on the first start; rewinding steps back through
+    // it one frame per tick instead of running
+    private RewindBuffer rewindBuffer;
+    private boolean rewinding;
 
-    private final EventListenerList ll = new EventListenerList();
-    private final Keyboard keyboard;
-    private final ClockSimulator delayClock;
-    private final PCSpeaker speaker;
-    private final ClockSimulator cpuClock;
+    // deterministic input, see recordInput and replayInput: keys are sampled once per frame boundary into
+    // latchedKeys, and a change of cycles per frame waits in pendingCyclesPerFrame for the next boundary
+    private InputLog inputLog;
+    private boolean replaying;
+    private int latchedKeys;
+    private int pendingCyclesPerFrame;
 
-    private boolean wait;
-    private boolean isWaiting;
+    // the GUI session being recorded, written out when it ends
+    private InputLog sessionLog;
+    private Path sessionLogPath;
+
+    // records every executed instruction when set; tracing runs everything through emulateCycle
+    private TraceRecorder tracer;
 
     // -------------------- Constructors --------------------
 
-    public CPU(Keyboard keyboard, PCSpeaker speaker) {
+    public CPU(InputDevice keyboard, AudioDevice speaker) {
         this.keyboard = Objects.requireNonNull(keyboard);
-        this.speaker = speaker;
-        this.delayClock = new ClockSimulator(() -> {
-            lock.lock();
-            try {
-                waitForSignal();
-                delayTimer = (short) Math.max(0, delayTimer - 1);
-                soundTimer = (short) Math.max(0, soundTimer - 1);
-                if (soundTimer == 0) {
-                    speaker.endBeep();
-                } else {
-                    speaker.startBeepIfNotStarted();
-                }
-                return true;
-            } finally {
-                lock.unlock();
-            }
-        });
-
-        this.cpuClock = new ClockSimulator(() -> {
-            lock.lock();
-            try {
-                ExecutionResult result = emulateCycle();
-                switch (result) {
-                    case OK -> {
-                        return true;
-                    }
-                    case END_PROGRAM, FATAL -> {
-                        return false;
-                    }
-                }
-                return false;
-            } finally {
-                lock.unlock();
-            }
+        this.speaker = Objects.requireNonNull(speaker);
+        this.frameClock = new FrameScheduler("cpu-clock", () -> {
+            runScheduledFrame();
+            return true;
         });
+        keyboard.setChangeListener(frameClock::wake);
     }
 
     // -------------------- Public Methods --------------------
 
     public void addDebuggerListener(DebuggerListener l) {
         Objects.requireNonNull(l);
-        ll.add(DebuggerListener.class, l);
+        debuggerListeners.add(l);
     }
 
     public void addRenderListener(RenderListener l) {
         Objects.requireNonNull(l);
-        ll.add(RenderListener.class, l);
+        renderListeners.add(l);
     }
 
-    public void setShouldWait(boolean shouldWait) {
-        lock.lock();
-        try {
-            this.wait = shouldWait;
-        } finally {
-            lock.unlock();
+    /**
+     * Resets the machine and loads the given ROM image at 0x200. Does not start any clocks. An input recording or
+     * replay in progress ends here, as with {@link #stopInput()}, since a log only describes the ROM it started with;
+     * the {@link TraceRecorder} and {@link ExecutionProfile}, if any, stay attached and carry on with the new ROM.
+     */
+    public void load(byte[] rom) {
+        Objects.requireNonNull(rom);
+        if (rom.length > memory.length - PROGRAM_START) {
+            throw new IllegalArgumentException("ROM of %d bytes does not fit in memory.".formatted(rom.length));
         }
+        stopInput();
+        initCPU();
+        System.arraycopy(rom, 0, memory, PROGRAM_START, rom.length);
+        decodeAll();
+        romChecksum = checksum(rom);
+        staticProgramMatches = staticProgram != null && staticProgram.romChecksum() == romChecksum;
     }
 
-    public void endWait() {
-        lock.lock();
-        try {
-            this.isWaiting = false;
-            condition.signalAll();
-        } finally {
-            lock.unlock();
+    /**
+     * Executes up to {@code cycles} instructions on the calling thread, stopping early if the program ends.
+     * Timers are not ticked; see {@link #runFrame()}.
+     */
+    public ExecutionResult runCycles(int cycles) {
+        idle = false;
+        delayPollAt = -1;
+        if (tracer != null) {
+            return runInterpreted(cycles);
+        }
+        switch (executionMode) {
+            case BLOCK_CACHE, RECOMPILER -> {
+                return runBlocks(cycles);
+            }
+            case STATIC -> {
+                if (staticProgramMatches) {
+                    return runStatic(cycles);
+                }
+            }
+        }
+        if (superinstructions) {
+            return runFused(cycles);
+        }
+        return runInterpreted(cycles);
+    }
+
+    /**
+     * Executes one 60 Hz frame worth of instructions on the calling thread, then ticks the delay and sound timers and
+     * publishes the frame to the {@link RenderListener}s if any row changed.
+     */
+    public ExecutionResult runFrame() {
+        if (profile != null) {
+            return runProfiledFrame();
+        }
+        ExecutionResult result = runCycles(cyclesPerFrame);
+        endFrame();
+        return result;
+    }
+
+    /**
+     * Executes up to {@code frames} frames as {@link #runFrame()} would, stopping early if the program ends. Frames
+     * spent polling the delay timer ({@code FX07; 3X00; 1NNN} back to the FX07) are fast-forwarded: they are
+     * accounted, their timer ticks happen and the loop is left exactly where executing them would have left it, but
+     * none of their instructions run.
+     */
+    public ExecutionResult runFrames(int frames) {
+        int frame = 0;
+        while (frame < frames) {
+            ExecutionResult result = runFrame();
+            if (result != ExecutionResult.OK) {
+                return result;
+            }
+            frame++;
+            frame += skipDelayPollFrames(frames - frame);
         }
+        return ExecutionResult.OK;
+    }
+
+    /**
+     * Records throughput and per-subsystem time of every subsequent {@link #runFrame()} into {@code profile}, or stops
+     * recording if it is null.
+     */
+    public void setExecutionProfile(ExecutionProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Records every subsequently executed instruction into {@code tracer}, or stops recording if it is null. While
+     * recording, all instructions are interpreted one at a time whatever the {@link ExecutionMode}.
+     */
+    public void setTraceRecorder(TraceRecorder tracer) {
+        this.tracer = tracer;
+    }
+
+    public void setCyclesPerFrame(int cyclesPerFrame) {
+        if (cyclesPerFrame < 1) {
+            throw new IllegalArgumentException("Cycles per frame must be positive: " + cyclesPerFrame);
+        }
+        if (inputLog != null && !replaying) {
+            pendingCyclesPerFrame = cyclesPerFrame;
+            return;
+        }
+        this.cyclesPerFrame = cyclesPerFrame;
+    }
+
+    public int getCyclesPerFrame() {
+        return cyclesPerFrame;
+    }
+
+    /**
+     * Selects how instructions are dispatched.
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = Objects.requireNonNull(executionMode);
     }
 
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Enables fusing of common opcode sequences into single dispatches by the interpreter (on by default).
+     */
+    public void setSuperinstructions(boolean superinstructions) {
+        this.superinstructions = superinstructions;
+    }
+
+    /**
+     * Number of times the given superinstruction was dispatched since the ROM was loaded.
+     */
+    public long getSuperinstructionHits(Superinstruction superinstruction) {
+        return superinstructionHits[superinstruction.ordinal()];
+    }
+
+    /**
+     * Number of blocks recompiled to bytecode since the ROM was loaded.
+     */
+    public long getCompiledBlocks() {
+        return compiledBlocks;
+    }
+
+    /**
+     * Sets the ahead-of-time recompiled program used by {@link ExecutionMode#STATIC}. It only takes effect while the
+     * loaded ROM matches the one it was generated from; otherwise, or when {@code null}, the interpreter is used.
+     */
+    public void setStaticProgram(StaticProgram staticProgram) {
+        this.staticProgram = staticProgram;
+        this.staticProgramMatches = staticProgram != null && staticProgram.romChecksum() == romChecksum;
+    }
+
+    /**
+     * Number of executions after which a block is recompiled in {@link ExecutionMode#RECOMPILER} mode.
+     */
+    public void setHotBlockThreshold(int hotBlockThreshold) {
+        if (hotBlockThreshold < 1) {
+            throw new IllegalArgumentException("Hot block threshold must be positive: " + hotBlockThreshold);
+        }
+        this.hotBlockThreshold = hotBlockThreshold;
+    }
+
+    /**
+     * Copies the current framebuffer into {@code dest}, which must be at least 32 rows of 64 pixels.
+     */
+    public void copyFrame(boolean[][] dest) {
+        unpackFrame(graphics, dest);
+    }
+
+    /**
+     * Copies the current framebuffer into {@code dest} as 32 packed rows, pixel 0 in the most significant bit.
+     */
+    public void copyFrame(long[] dest) {
+        System.arraycopy(graphics, 0, dest, 0, graphics.length);
+    }
+
+    /**
+     * Pauses the machine before every instruction until {@link #endWait()} is called, or resumes normal execution.
+     */
+    public void setShouldWait(boolean shouldWait) {
+        submit(() -> wait = shouldWait);
+    }
+
+    /**
+     * Lets a paused machine execute one more instruction.
+     */
+    public void endWait() {
+        submit(() -> pendingSteps++);
+    }
+
+    /**
+     * Sets the emulated instruction rate. Instructions run in one batch per 60 Hz frame, so the rate is rounded to a
+     * whole number of instructions per frame.
+     */
     public void setCpuClock(int cpuCLockHz) {
-        lock.lock();
-        try {
-            if (cpuClock.isRunning()) {
-                cpuClock.stopGracefully();
-                cpuClock.start(cpuCLockHz);
+        int cycles = Math.max(1, Math.round(cpuCLockHz / (float) DELAY_CLOCK_HZ));
+        submit(() -> setCyclesPerFrame(cycles));
+    }
+
+    /**
+     * Turbo mode drops all clock pacing when the machine is driven by {@link #start(File)}: frames of
+     * {@link #getCyclesPerFrame()} instructions run back to back as fast as the host allows, so the delay and sound
+     * timers still tick once every that many instructions and programs behave as they would at full speed. Throughput
+     * is reported on standard out every second and when turbo mode ends.
+     */
+    public void setTurbo(boolean turbo) {
+        submit(() -> {
+            if (this.turbo == turbo) {
+                return;
             }
-        } finally {
-            lock.unlock();
+            reportTurbo();
+            this.turbo = turbo;
+            this.profile = turbo ? new ExecutionProfile() : null;
+            frameClock.setUnthrottled(turbo);
+        });
+    }
+
+    /**
+     * Restarts the machine's random number generator (used by {@code CXNN}) from {@code seed}.
+     */
+    public void setRandomSeed(long seed) {
+        rngState = seed;
+    }
+
+    /**
+     * Number of 60 Hz frame boundaries since the ROM was loaded.
+     */
+    public long getFrameCount() {
+        return timerTicks;
+    }
+
+    /**
+     * Makes the session that starts now deterministic and records what it depends on into {@code log}: the random
+     * number generator is seeded from {@link InputLog#getSeed()}, the keys are sampled once per frame boundary rather
+     * than whenever an instruction reads them, and changes of cycles per frame wait for the next frame boundary. Must
+     * be called right after {@link #load(byte[])}. Recording ends with {@link #stopInput()} or when a state is
+     * restored.
+     */
+    public void recordInput(InputLog log) {
+        requireFreshMachine();
+        rngState = log.getSeed();
+        log.begin(romChecksum);
+        inputLog = log;
+        replaying = false;
+        latchedKeys = keyboard.getPressedMask();
+        log.add(timerTicks, InputLog.CYCLES_PER_FRAME, cyclesPerFrame);
+        log.add(timerTicks, InputLog.KEYS, latchedKeys);
+    }
+
+    /**
+     * Replays a session recorded by {@link #recordInput(InputLog)}: from here on the keys and cycles per frame come
+     * from {@code log} at the frame boundaries where they were recorded, and the input device is ignored. Must be
+     * called right after loading the ROM the log was recorded with; running {@link InputLog#getFrames()} frames then
+     * leaves the machine exactly where the recorded session ended, whatever the execution mode.
+     */
+    public void replayInput(InputLog log) {
+        requireFreshMachine();
+        if (log.getRomChecksum() != romChecksum) {
+            throw new IllegalArgumentException("Input log was recorded with a different ROM.");
         }
+        rngState = log.getSeed();
+        log.rewind();
+        inputLog = log;
+        replaying = true;
+        latchedKeys = 0;
+        latchInput();
     }
 
-    public void start(File romFile) {
-        lock.lock();
-        try {
-            initCPU();
-            readRomIntoMemory(romFile);
-        } finally {
-            lock.unlock();
+    /**
+     * Ends recording or replay; a recording's length is set to the frames run so far.
+     */
+    public void stopInput() {
+        if (inputLog != null && !replaying) {
+            inputLog.end(timerTicks);
+        }
+        inputLog = null;
+        replaying = false;
+        if (pendingCyclesPerFrame != 0) {
+            cyclesPerFrame = pendingCyclesPerFrame;
+            pendingCyclesPerFrame = 0;
+        }
+    }
+
+    /**
+     * Captures the whole machine into {@code dest}, overwriting it. Must be called from the thread driving the CPU;
+     * see {@link #requestSnapshot(Consumer)} while it runs on the emulation thread.
+     */
+    public void saveState(SaveState dest) {
+        ByteBuffer state = dest.buffer();
+        state.putShort(SaveState.PC, programCounter);
+        state.putShort(SaveState.INDEX, indexRegister);
+        state.putShort(SaveState.STACK_POINTER, stackPointer);
+        for (int i = 0; i < stack.length; i++) {
+            state.putShort(SaveState.STACK + i * 2, stack[i]);
+        }
+        System.arraycopy(vRegister, 0, dest.data(), SaveState.REGISTERS, vRegister.length);
+        state.putLong(SaveState.TIMER_TICKS, timerTicks);
+        state.putLong(SaveState.DELAY_EXPIRY, delayExpiry);
+        state.putLong(SaveState.SOUND_EXPIRY, soundExpiry);
+        state.putLong(SaveState.RNG_STATE, rngState);
+        state.putInt(SaveState.KEYS, inputLog != null ? latchedKeys : keyboard.getPressedMask());
+        state.putLong(SaveState.ROM_CHECKSUM, romChecksum);
+        state.putLong(SaveState.MODIFIED_PAGES, modifiedPages);
+        for (int row = 0; row < graphics.length; row++) {
+            state.putLong(SaveState.GRAPHICS + row * 8, graphics[row]);
+        }
+        System.arraycopy(memory, 0, dest.data(), SaveState.MEMORY, memory.length);
+    }
+
+    /**
+     * Puts the machine back in the state captured by {@link #saveState(SaveState)}. Only memory pages that differ
+     * from the current ones are copied and re-decoded. The next frame is published in full. Ends input recording or
+     * replay, since the session no longer follows from its start. Must be called from the thread driving the CPU; see
+     * {@link #requestRestore(SaveState)} while it runs on the emulation thread.
+     */
+    public void restoreState(SaveState src) {
+        stopInput();
+        ByteBuffer state = src.buffer();
+        byte[] data = src.data();
+        programCounter = state.getShort(SaveState.PC);
+        indexRegister = state.getShort(SaveState.INDEX);
+        stackPointer = state.getShort(SaveState.STACK_POINTER);
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = state.getShort(SaveState.STACK + i * 2);
+        }
+        System.arraycopy(data, SaveState.REGISTERS, vRegister, 0, vRegister.length);
+        timerTicks = state.getLong(SaveState.TIMER_TICKS);
+        delayExpiry = state.getLong(SaveState.DELAY_EXPIRY);
+        soundExpiry = state.getLong(SaveState.SOUND_EXPIRY);
+        rngState = state.getLong(SaveState.RNG_STATE);
+        latchedKeys = state.getInt(SaveState.KEYS);
+        keyboard.setPressedMask(latchedKeys);
+        for (int row = 0; row < graphics.length; row++) {
+            graphics[row] = state.getLong(SaveState.GRAPHICS + row * 8);
         }
-        delayClock.start(DELAY_CLOCK_HZ);
-        cpuClock.start(Props.getSavedCPUClockSpeed());
-        fireStarted();
+        int pageSize = BlockCache.PAGE_SIZE;
+        for (int page = 0; page < memory.length; page += pageSize) {
+            int from = SaveState.MEMORY + page;
+            if (Arrays.mismatch(memory, page, page + pageSize, data, from, from + pageSize) >= 0) {
+                System.arraycopy(data, from, memory, page, pageSize);
+                refreshDecoded(page, page + pageSize - 1);
+            }
+        }
+        modifiedPages = state.getLong(SaveState.MODIFIED_PAGES);
+        romChecksum = state.getLong(SaveState.ROM_CHECKSUM);
+        staticProgramMatches = staticProgram != null && staticProgram.romChecksum() == romChecksum;
+
+        // nothing carried over from the batch that was running
+        dirtyRows = -1;
+        steppedCycles = 0;
+        spinLength = 0;
+        spinRegister = -1;
+        idle = false;
+        delayPollAt = -1;
+        beeping = soundExpiry > timerTicks;
+        if (beeping) {
+            speaker.startBeepIfNotStarted();
+        } else {
+            speaker.endBeep();
+        }
+    }
+
+    /**
+     * Takes a snapshot on the emulation thread between frames and hands it to {@code callback} there. Does nothing
+     * unless a ROM is running.
+     */
+    public void requestSnapshot(Consumer<SaveState> callback) {
+        Objects.requireNonNull(callback);
+        submit(() -> {
+            if (!running) {
+                return;
+            }
+            SaveState state = new SaveState();
+            saveState(state);
+            callback.accept(state);
+        });
+    }
+
+    /**
+     * Restores {@code state} on the emulation thread between frames and shows it, even while paused at a breakpoint.
+     * Does nothing unless a ROM is running.
+     */
+    public void requestRestore(SaveState state) {
+        Objects.requireNonNull(state);
+        submit(() -> {
+            if (!running) {
+                return;
+            }
+            restoreState(state);
+            halted = false;
+            fireRenderNeeded();
+            sampleDebuggerState();
+        });
+    }
+
+    /**
+     * While {@code rewinding} is true the emulation thread stops running the program and steps back through the
+     * recorded frames instead, one per 60 Hz tick, until the history runs out. Frames run in turbo mode or while
+     * single-stepping are not recorded.
+     */
+    public void setRewinding(boolean rewinding) {
+        submit(() -> this.rewinding = rewinding);
+    }
+
+    /**
+     * Loads the ROM and runs it on the emulation thread, replacing whatever was running. The file is read on the
+     * emulation thread, in order with the other commands, so this is safe to call from the EDT; a ROM that cannot be
+     * read is reported on standard error and leaves the running program alone.
+     */
+    public void start(File romFile) {
+        int cycles = Math.max(1, Math.round(Props.getSavedCPUClockSpeed() / (float) DELAY_CLOCK_HZ));
+        int rewindBytes = Props.getSavedRewindBufferSize();
+        Path logPath = Props.getInputLogPath(romFile);
+        submit(() -> {
+            byte[] rom;
+            try {
+                rom = readRom(romFile);
+            } catch (RuntimeException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+            writeSessionLog();
+            load(rom);
+            setCyclesPerFrame(cycles);
+            sessionLog = new InputLog(System.nanoTime());
+            sessionLogPath = logPath;
+            recordInput(sessionLog);
+            if (rewindBuffer == null) {
+                rewindBuffer = new RewindBuffer(rewindBytes, REWIND_KEYFRAME_INTERVAL);
+            }
+            rewindBuffer.clear();
+            rewindBuffer.push(this);
+            rewinding = false;
+            if (turbo) {
+                profile = new ExecutionProfile();
+            }
+            running = true;
+            halted = false;
+            pendingSteps = 0;
+            fireStarted();
+        });
+        frameClock.start(DELAY_CLOCK_HZ);
     }
 
     public void stop() {
-        lock.lock();
-        try {
-            cpuClock.stopGracefully();
-            delayClock.stopGracefully();
+        submit(() -> {
+            if (!running) {
+                return;
+            }
+            running = false;
+            reportTurbo();
+            writeSessionLog();
             speaker.endBeep();
             fireStopped();
             initCPU();
             fireRenderNeeded();
-        } finally {
-            lock.unlock();
-        }
+        });
     }
 
     // -------------------- Private Methods --------------------
 
     private void initCPU() {
-        assert !lock.isLocked();
-        this.programCounter = 512;
+        this.programCounter = PROGRAM_START;
         this.indexRegister = 0;
         this.stackPointer = 0;
         this.stack = new short[16];
         this.memory = new byte[4096];
         this.vRegister = new byte[16];
-        this.graphics = new boolean[32][64];
-        this.delayTimer = 0;
-        this.soundTimer = 0;
+        Arrays.fill(this.graphics, 0L);
+        this.dirtyRows = -1;
+        this.steppedCycles = 0;
+        this.timerTicks = 0;
+        this.delayExpiry = 0;
+        this.soundExpiry = 0;
+        this.beeping = false;
 
         // load the system font set
         System.arraycopy(FONT_SET, 0, this.memory, 0, FONT_SET.length);
+        decodeAll();
+        Arrays.fill(superinstructionHits, 0);
+        this.compiledBlocks = 0;
 
         fireInit();
     }
 
-    private void readRomIntoMemory(File romFile) {
-        assert !lock.isLocked();
+    private void requireFreshMachine() {
+        if (timerTicks != 0) {
+            throw new IllegalStateException("Input recording and replay must start right after the ROM is loaded.");
+        }
+    }
 
-        // load the file contents into memory
+    private void latchInput() {
+        // outside input only reaches the machine here, so a session follows from the ROM, the seed and the log
+        if (replaying) {
+            while (inputLog.hasEventAt(timerTicks)) {
+                int event = inputLog.next();
+                if (inputLog.kind(event) == InputLog.KEYS) {
+                    latchedKeys = inputLog.value(event);
+                } else {
+                    cyclesPerFrame = inputLog.value(event);
+                }
+            }
+            return;
+        }
+        if (pendingCyclesPerFrame != 0) {
+            cyclesPerFrame = pendingCyclesPerFrame;
+            pendingCyclesPerFrame = 0;
+            inputLog.add(timerTicks, InputLog.CYCLES_PER_FRAME, cyclesPerFrame);
+        }
+        int keys = keyboard.getPressedMask();
+        if (keys != latchedKeys) {
+            latchedKeys = keys;
+            inputLog.add(timerTicks, InputLog.KEYS, keys);
+            // the wake-up for this change came while the batch still saw the old keys; the next batch must run
+            idle = false;
+        }
+    }
+
+    private void writeSessionLog() {
+        if (sessionLog == null) {
+            return;
+        }
+        stopInput();
+        InputLog log = sessionLog;
+        Path path = sessionLogPath;
+        sessionLog = null;
+        Utilities.invokeInBackground(() -> log.write(path));
+    }
+
+    private byte[] readRom(File romFile) {
         if (!romFile.exists()) {
             throw new RuntimeException("File '%s' not found!".formatted(romFile.toPath()));
         }
-        byte[] fileBytes = Utilities.readBytes(romFile);
-        assert romFile.length() < memory.length - programCounter; // make sure we don't overrun memory
-        System.arraycopy(fileBytes, 0, memory, programCounter, fileBytes.length);
+        return Utilities.readBytes(romFile);
     }
 
-    private ExecutionResult emulateCycle() {
-        assert !lock.isLocked();
-        waitForSignal();
-        renderFlag = false;
+    private void submit(Runnable command) {
+        commands.add(command);
+        frameClock.wake();
+    }
 
+    private void runScheduledFrame() {
+        runCommands();
+        if (!running) {
+            // stopped: only a command can change anything, and submitting one wakes the clock
+            frameClock.idle(PARKED_TIMEOUT_NANOS);
+            return;
+        }
+        if (rewinding) {
+            if (rewindBuffer.stepBack(this)) {
+                halted = false;
+                fireRenderNeeded();
+                sampleDebuggerState();
+            }
+            return;
+        }
+        if (halted) {
+            // the program ended: the same, until it is stopped, replaced or rewound
+            frameClock.idle(PARKED_TIMEOUT_NANOS);
+            return;
+        }
+
+        ExecutionResult result = runNextBatch();
+        if (result != ExecutionResult.OK) {
+            // the program ended; keep the machine on screen until it is stopped or replaced
+            halted = true;
+            speaker.endBeep();
+        }
+        if (!wait && !turbo) {
+            rewindBuffer.push(this);
+        }
+        if (turbo && profile.isIntervalElapsed(TURBO_REPORT_INTERVAL_NANOS)) {
+            System.out.println("Turbo: " + profile.intervalReport());
+        }
+        if (canIdle()) {
+            // nothing can change before a key event or a command: sleep instead of spinning through empty frames
+            frameClock.idle(IDLE_TIMEOUT_NANOS);
+        }
+    }
+
+    private void reportTurbo() {
+        if (turbo && profile.getFrames() > 0) {
+            System.out.println("Turbo total: " + profile.report());
+        }
+    }
+
+    private ExecutionResult runProfiledFrame() {
+        long start = System.nanoTime();
+        int cycles = cyclesPerFrame;
+        ExecutionResult result = runCycles(cycles);
+        long executed = System.nanoTime();
+        tickTimers();
+        if (inputLog != null) {
+            latchInput();
+        }
+        long ticked = System.nanoTime();
+        if (dirtyRows != 0) {
+            fireRenderNeeded();
+        }
+        sampleDebuggerState();
+        long rendered = System.nanoTime();
+
+        profile.addTime(ExecutionProfile.Subsystem.CPU, executed - start);
+        profile.addTime(ExecutionProfile.Subsystem.TIMERS, ticked - executed);
+        profile.addTime(ExecutionProfile.Subsystem.RENDER, rendered - ticked);
+        profile.countFrame(result == ExecutionResult.OK ? cycles : 0);
+        return result;
+    }
+
+    private int skipDelayPollFrames(int maxFrames) {
+        int start = delayPollAt;
+        delayPollAt = -1;
+        // the last batch ended inside the poll loop with VX holding a non-zero timer value, so every frame that starts
+        // with the timer still running goes round the loop for its whole batch
+        if (start < 0 || maxFrames <= 0 || cyclesPerFrame < 3
+                || programCounter < start || programCounter > start + 4 || !Peephole.isDelayPoll(decoded, start)) {
+            return 0;
+        }
+        int frames = Math.min(delayTimer(), maxFrames);
+        // the cycles per frame may change at the next event or pending change, and below 3 a frame no longer reaches
+        // the FX07, so stop there and look again
+        if (replaying) {
+            frames = (int) Math.min(frames, inputLog.nextEventFrame() - timerTicks);
+        } else if (pendingCyclesPerFrame != 0) {
+            frames = Math.min(frames, 1);
+        }
+        if (frames == 0) {
+            return 0;
+        }
+
+        // the FX07 of the last skipped frame read the timer one tick before the end of that frame
+        vRegister[Decoder.x(decoded[start])] = (byte) (delayTimer() - frames + 1);
+        // each frame runs at the cycles per frame in effect when it starts; latching may change it for the next one
+        long skipped = 0;
+        for (int i = 0; i < frames; i++) {
+            int cycles = cyclesPerFrame;
+            skipped += cycles;
+            // reading the clock costs more than the tick itself, so only when profiling
+            long ticked = profile != null ? System.nanoTime() : 0;
+            tickTimers();
+            if (inputLog != null) {
+                latchInput();
+            }
+            if (profile != null) {
+                profile.addTime(ExecutionProfile.Subsystem.TIMERS, System.nanoTime() - ticked);
+                profile.countFrame(cycles);
+            }
+        }
+        int position = (programCounter - start) / 2;
+        programCounter = (short) (start + 2 * (int) ((position + skipped) % 3));
+        if (tracer != null) {
+            tracer.skip(skipped);
+        }
+        return frames;
+    }
+
+    private ExecutionResult runPendingSteps() {
+        // single-stepping: one instruction per endWait, with the frame boundary after a frame's worth of steps
+        while (pendingSteps > 0) {
+            pendingSteps--;
+            short executedAt = programCounter;
+            ExecutionResult result = emulateCycle();
+            if (result == ExecutionResult.OK && !debuggerListeners.isEmpty()) {
+                // the only place the debugger sees every instruction
+                fireExecuteStateChanged(new OperationState(executedAt, memory));
+            }
+            if (++steppedCycles >= cyclesPerFrame) {
+                steppedCycles = 0;
+                endFrame();
+            }
+            if (result != ExecutionResult.OK) {
+                return result;
+            }
+        }
+        return ExecutionResult.OK;
+    }
+
+    private void endFrame() {
+        tickTimers();
+        if (inputLog != null) {
+            latchInput();
+        }
+        if (dirtyRows != 0) {
+            fireRenderNeeded();
+        }
+        sampleDebuggerState();
+    }
+
+    private void sampleDebuggerState() {
+        // outside single-stepping the debugger gets one snapshot per display refresh, however fast frames run
+        if (debuggerListeners.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastDebuggerSample < DEBUGGER_SAMPLE_NANOS || programCounter >= memory.length - 3) {
+            return;
+        }
+        lastDebuggerSample = now;
+        fireExecuteStateChanged(new OperationState(programCounter, memory));
+    }
+
+    private void tickTimers() {
+        timerTicks++;
+        // the speaker only hears about the tick where the sound timer starts or stops running
+        boolean shouldBeep = soundExpiry > timerTicks;
+        if (shouldBeep != beeping) {
+            beeping = shouldBeep;
+            if (shouldBeep) {
+                speaker.startBeepIfNotStarted();
+            } else {
+                speaker.endBeep();
+            }
+        }
+    }
+
+    private ExecutionResult emulateCycle() {
         // we hit the end
-        if (programCounter >= memory.length) {
+        if (programCounter >= memory.length - 1) {
             return ExecutionResult.END_PROGRAM;
         }
 
-        OperationState state = new OperationState(programCounter, memory);
-        fireExecuteStateChanged(state);
-
-        if ((int) state.getCurrentOpcode() == 0x0000) {
+        int instruction = decoded[programCounter];
+        if (Decoder.handler(instruction) == Decoder.EMPTY) {
             // current operation is empty
             return ExecutionResult.END_PROGRAM;
         }
 
-        programCounter += 2;
-        byte lowByte = state.getLowByte();
-        short currentOpcode = state.getCurrentOpcode();
-        short nnn = state.getNNN();
-        byte n = state.getN();
-        byte x = state.getX();
-        byte y = state.getY();
-
-        switch (state.getHighNibble()) {
-            case 0x0 -> do0X(currentOpcode);
-            case 0x1 -> do1X(nnn);
-            case 0x2 -> do2X(nnn);
-            case 0x3 -> do3X(lowByte, x);
-            case 0x4 -> do4X(lowByte, x);
-            case 0x5 -> do5X(x, y);
-            case 0x6 -> do6X(lowByte, x);
-            case 0x7 -> do7X(lowByte, x);
-            case 0x8 -> do8XY(n, x, y);
-            case 0x9 -> do9X(x, y);
-            case 0xA -> doAX(nnn);
-            case 0xB -> doBX(nnn);
-            case 0xC -> doCX(lowByte, x);
-            case 0xD -> doDX(n, x, y);
-            case 0xE -> doEX(n, x);
-            case 0xF -> doFX(lowByte, x);
-            default -> throw new IllegalArgumentException();
+        if (tracer != null) {
+            traceCycle(instruction);
+            return ExecutionResult.OK;
         }
+        programCounter += 2;
+        execute(instruction);
+        return ExecutionResult.OK;
+    }
 
-        fireExecuteStateChanged(state);
+    private void traceCycle(int instruction) {
+        int pc = programCounter;
+        int opcode = (memory[pc] & 0xFF) << 8 | memory[pc + 1] & 0xFF;
+        tracer.capture(vRegister);
+        programCounter += 2;
+        execute(instruction);
+        tracer.record(pc, opcode, indexRegister, vRegister);
+    }
 
-        if (renderFlag) {
-            fireRenderNeeded();
+    private int skipSpin(int remaining) {
+        // the rest of the batch would only go round the same loop: drop the whole iterations, keep the partial one
+        if (remaining >= spinLength && spinRegister >= 0) {
+            vRegister[spinRegister] = (byte) delayTimer();
+        }
+        int left = remaining % spinLength;
+        if (tracer != null) {
+            tracer.skip(remaining - left);
+        }
+        spinLength = 0;
+        spinRegister = -1;
+        return left;
+    }
+
+    private ExecutionResult runInterpreted(int cycles) {
+        int remaining = cycles;
+        while (remaining > 0) {
+            ExecutionResult result = emulateCycle();
+            if (result != ExecutionResult.OK) {
+                return result;
+            }
+            remaining--;
+            if (spinLength != 0) {
+                remaining = skipSpin(remaining);
+            }
         }
+        return ExecutionResult.OK;
+    }
 
+    private ExecutionResult runBlocks(int cycles) {
+        int remaining = cycles;
+        while (remaining > 0) {
+            BlockCache.Block block = programCounter < memory.length - 1 ? blockCache.lookup(programCounter) : null;
+            if (block == null || block.length() > remaining) {
+                // not translatable, or would overshoot the budget: interpret a single instruction
+                ExecutionResult result = emulateCycle();
+                if (result != ExecutionResult.OK) {
+                    return result;
+                }
+                remaining--;
+            } else {
+                runBlock(block);
+                remaining -= block.length();
+            }
+            if (spinLength != 0) {
+                remaining = skipSpin(remaining);
+            }
+        }
         return ExecutionResult.OK;
     }
 
-    private void do0X(short currentOpcode) {
-        if ((int) currentOpcode == 0x00E0) {
-            // 00E0 - Clear the screen
-            graphics = new boolean[32][64];
-            renderFlag = true;
-        } else if ((int) currentOpcode == 0x00EE) {
-            // 00EE - Returns from a subroutine
-            stackPointer = (short) (stackPointer - 1);
-            programCounter = stack[stackPointer];
+    private void runBlock(BlockCache.Block block) {
+        CompiledBlock compiled = block.compiled();
+        if (compiled != null) {
+            compiled.run(this);
         } else {
-            // 0NNN - Calls RCA 1802 program at address NNN. Ignored by modern interpreters.
-            System.out.println("0NNN called: Ignoring");
+            int pc = block.start();
+            for (Runnable op : block.ops()) {
+                pc += 2;
+                programCounter = (short) pc;
+                op.run();
+            }
+            if (executionMode == ExecutionMode.RECOMPILER && block.countExecution() == hotBlockThreshold) {
+                CompiledBlock recompiled = blockCompiler.compile(block.start(), block.instructions());
+                block.setCompiled(recompiled);
+                if (recompiled != null) {
+                    compiledBlocks++;
+                }
+            }
         }
     }
 
-    private void do1X(short nnn) {
+    private ExecutionResult runFused(int cycles) {
+        int remaining = cycles;
+        while (remaining > 0) {
+            int superinstruction = programCounter < memory.length - 1 ? fused[programCounter] : 0;
+            if (superinstruction == 0 || Peephole.length(superinstruction) > remaining) {
+                ExecutionResult result = emulateCycle();
+                if (result != ExecutionResult.OK) {
+                    return result;
+                }
+                remaining--;
+            } else {
+                remaining -= executeFused(superinstruction);
+                superinstructionHits[Peephole.kind(superinstruction).ordinal()]++;
+            }
+            if (spinLength != 0) {
+                remaining = skipSpin(remaining);
+            }
+        }
+        return ExecutionResult.OK;
+    }
+
+    /**
+     * Executes a superinstruction at the program counter and returns the number of instructions it accounted for.
+     */
+    private int executeFused(int superinstruction) {
+        int start = programCounter;
+        switch (Decoder.handler(superinstruction)) {
+            case Peephole.FUSED_LOAD_AND_DRAW -> {
+                int draw = decoded[start + 2];
+                programCounter = (short) (start + 4);
+                doAX(Decoder.nnn(superinstruction));
+                doDX(Decoder.n(draw), Decoder.x(draw), Decoder.y(draw));
+                return 2;
+            }
+            case Peephole.FUSED_LOAD_RUN -> {
+                int length = Peephole.length(superinstruction);
+                programCounter = (short) (start + length * 2);
+                for (int address = start; address < start + length * 2; address += 2) {
+                    int load = decoded[address];
+                    vRegister[Decoder.x(load)] = (byte) Decoder.nn(load);
+                }
+                return length;
+            }
+            case Peephole.FUSED_ADD_AND_SKIP -> {
+                int skip = decoded[start + 2];
+                programCounter = (short) (start + 4);
+                do7X(Decoder.nn(superinstruction), Decoder.x(superinstruction));
+                do3X(Decoder.nn(skip), Decoder.x(skip));
+                return 2;
+            }
+            case Peephole.FUSED_DELAY_POLL -> {
+                int x = Decoder.x(superinstruction);
+                programCounter = (short) (start + 4);
+                doFX07(x);
+                do3X(0, x);
+                if (programCounter == start + 4) {
+                    // timer still running: take the jump back to the FX07
+                    programCounter = (short) start;
+                    spinLength = 3;
+                    spinRegister = x;
+                    delayPollAt = start;
+                    return 3;
+                }
+                return 2;
+            }
+            default -> throw new IllegalArgumentException();
+        }
+    }
+
+    private ExecutionResult runStatic(int cycles) {
+        int remaining = cycles;
+        while (remaining > 0) {
+            int executed = programCounter < memory.length - 1 ? staticProgram.run(this, programCounter, remaining) : 0;
+            if (executed == 0) {
+                // computed jump target, modified code or budget too small: interpret a single instruction
+                ExecutionResult result = emulateCycle();
+                if (result != ExecutionResult.OK) {
+                    return result;
+                }
+                remaining--;
+            } else {
+                remaining -= executed;
+            }
+            if (spinLength != 0) {
+                remaining = skipSpin(remaining);
+            }
+        }
+        return ExecutionResult.OK;
+    }
+
+    private void execute(int instruction) {
+        int x = Decoder.x(instruction);
+        int y = Decoder.y(instruction);
+        switch (Decoder.handler(instruction)) {
+            case Decoder.OP_00E0 -> do00E0();
+            case Decoder.OP_00EE -> do00EE();
+            case Decoder.OP_0NNN -> do0NNN();
+            case Decoder.OP_1NNN -> do1X(Decoder.nnn(instruction));
+            case Decoder.OP_2NNN -> do2X(Decoder.nnn(instruction));
+            case Decoder.OP_3XNN -> do3X(Decoder.nn(instruction), x);
+            case Decoder.OP_4XNN -> do4X(Decoder.nn(instruction), x);
+            case Decoder.OP_5XY0 -> do5X(x, y);
+            case Decoder.OP_6XNN -> do6X(Decoder.nn(instruction), x);
+            case Decoder.OP_7XNN -> do7X(Decoder.nn(instruction), x);
+            case Decoder.OP_8XY0 -> do8XY0(x, y);
+            case Decoder.OP_8XY1 -> do8XY1(x, y);
+            case Decoder.OP_8XY2 -> do8XY2(x, y);
+            case Decoder.OP_8XY3 -> do8XY3(x, y);
+            case Decoder.OP_8XY4 -> do8XY4(x, y);
+            case Decoder.OP_8XY5 -> do8XY5(x, y);
+            case Decoder.OP_8XY6 -> do8XY6(x);
+            case Decoder.OP_8XY7 -> do8XY7(x, y);
+            case Decoder.OP_8XYE -> do8XYE(x);
+            case Decoder.OP_9XY0 -> do9X(x, y);
+            case Decoder.OP_ANNN -> doAX(Decoder.nnn(instruction));
+            case Decoder.OP_BNNN -> doBX(Decoder.nnn(instruction));
+            case Decoder.OP_CXNN -> doCX(Decoder.nn(instruction), x);
+            case Decoder.OP_DXYN -> doDX(Decoder.n(instruction), x, y);
+            case Decoder.OP_EX9E -> doEX9E(x);
+            case Decoder.OP_EXA1 -> doEXA1(x);
+            case Decoder.OP_FX07 -> doFX07(x);
+            case Decoder.OP_FX0A -> doFX0A(x);
+            case Decoder.OP_FX15 -> doFX15(x);
+            case Decoder.OP_FX18 -> doFX18(x);
+            case Decoder.OP_FX1E -> doFX1E(x);
+            case Decoder.OP_FX29 -> doFX29(x);
+            case Decoder.OP_FX33 -> doFX33(x);
+            case Decoder.OP_FX55 -> doFX55(x);
+            case Decoder.OP_FX65 -> doFX65(x);
+            default -> throw new IllegalArgumentException();
+        }
+    }
+
+    private Runnable bind(int instruction) {
+        int x = Decoder.x(instruction);
+        int y = Decoder.y(instruction);
+        int n = Decoder.n(instruction);
+        int nn = Decoder.nn(instruction);
+        int nnn = Decoder.nnn(instruction);
+        return switch (Decoder.handler(instruction)) {
+            case Decoder.OP_00E0 -> this::do00E0;
+            case Decoder.OP_00EE -> this::do00EE;
+            case Decoder.OP_0NNN -> this::do0NNN;
+            case Decoder.OP_1NNN -> () -> do1X(nnn);
+            case Decoder.OP_2NNN -> () -> do2X(nnn);
+            case Decoder.OP_3XNN -> () -> do3X(nn, x);
+            case Decoder.OP_4XNN -> () -> do4X(nn, x);
+            case Decoder.OP_5XY0 -> () -> do5X(x, y);
+            case Decoder.OP_6XNN -> () -> do6X(nn, x);
+            case Decoder.OP_7XNN -> () -> do7X(nn, x);
+            case Decoder.OP_8XY0 -> () -> do8XY0(x, y);
+            case Decoder.OP_8XY1 -> () -> do8XY1(x, y);
+            case Decoder.OP_8XY2 -> () -> do8XY2(x, y);
+            case Decoder.OP_8XY3 -> () -> do8XY3(x, y);
+            case Decoder.OP_8XY4 -> () -> do8XY4(x, y);
+            case Decoder.OP_8XY5 -> () -> do8XY5(x, y);
+            case Decoder.OP_8XY6 -> () -> do8XY6(x);
+            case Decoder.OP_8XY7 -> () -> do8XY7(x, y);
+            case Decoder.OP_8XYE -> () -> do8XYE(x);
+            case Decoder.OP_9XY0 -> () -> do9X(x, y);
+            case Decoder.OP_ANNN -> () -> doAX(nnn);
+            case Decoder.OP_BNNN -> () -> doBX(nnn);
+            case Decoder.OP_CXNN -> () -> doCX(nn, x);
+            case Decoder.OP_DXYN -> () -> doDX(n, x, y);
+            case Decoder.OP_EX9E -> () -> doEX9E(x);
+            case Decoder.OP_EXA1 -> () -> doEXA1(x);
+            case Decoder.OP_FX07 -> () -> doFX07(x);
+            case Decoder.OP_FX0A -> () -> doFX0A(x);
+            case Decoder.OP_FX15 -> () -> doFX15(x);
+            case Decoder.OP_FX18 -> () -> doFX18(x);
+            case Decoder.OP_FX1E -> () -> doFX1E(x);
+            case Decoder.OP_FX29 -> () -> doFX29(x);
+            case Decoder.OP_FX33 -> () -> doFX33(x);
+            case Decoder.OP_FX55 -> () -> doFX55(x);
+            case Decoder.OP_FX65 -> () -> doFX65(x);
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    private void decodeAll() {
+        for (int address = 0; address < memory.length - 1; address++) {
+            decoded[address] = Decoder.decode(memory[address], memory[address + 1]);
+        }
+        for (int address = 0; address < memory.length - 1; address++) {
+            fused[address] = Peephole.fuse(decoded, address);
+        }
+        blockCache.clear();
+        modifiedPages = 0;
+    }
+
+    private void refreshDecoded(int from, int to) {
+        // an instruction starting one byte before the write overlaps it too
+        int start = Math.max(0, from - 1);
+        int end = Math.min(memory.length - 2, to);
+        for (int address = start; address <= end; address++) {
+            decoded[address] = Decoder.decode(memory[address], memory[address + 1]);
+        }
+        // a superinstruction starting up to MAX_SPAN instructions earlier may cover the write
+        for (int address = Math.max(0, start - (Peephole.MAX_SPAN - 1) * 2); address <= end; address++) {
+            fused[address] = Peephole.fuse(decoded, address);
+        }
+        blockCache.invalidate(start, to);
+        modifiedPages |= pageMask(start, to);
+    }
+
+    // -------------------- Default Methods --------------------
+
+    // Opcode handlers. Package-private so recompiled code (BlockCompiler, StaticRecompiler) can call them directly.
+
+    void do00E0() {
+        // 00E0 - Clear the screen
+        for (int row = 0; row < graphics.length; row++) {
+            if (graphics[row] != 0) {
+                dirtyRows |= 1 << row;
+            }
+        }
+        Arrays.fill(graphics, 0L);
+    }
+
+    void do00EE() {
+        // 00EE - Returns from a subroutine
+        stackPointer = (short) (stackPointer - 1);
+        programCounter = stack[stackPointer];
+    }
+
+    void do0NNN() {
+        // 0NNN - Calls RCA 1802 program at address NNN. Ignored by modern interpreters.
+        System.out.println("0NNN called: Ignoring");
+    }
+
+    void do1X(int nnn) {
         // 1NNN - Jumps to memory address NNN
-        programCounter = nnn;
+        if (nnn == programCounter - 2) {
+            spinLength = 1;
+            idle = true;
+        } else if (nnn == programCounter - 4 && spinsOnKey(nnn)) {
+            spinLength = 2;
+            idle = true;
+        } else if (nnn == programCounter - 6 && delayTimer() > 0 && Peephole.isDelayPoll(decoded, nnn)) {
+            // the timer stays put until the frame boundary, so every FX07 left in the batch reads the same non-zero value
+            spinLength = 3;
+            spinRegister = Decoder.x(decoded[nnn]);
+            delayPollAt = nnn;
+        }
+        programCounter = (short) nnn;
     }
 
-    private void do2X(short nnn) {
+    void do2X(int nnn) {
         // 2NNN - Jumps to subroutine at NNN
         stack[stackPointer] = programCounter;
         stackPointer = (short) (stackPointer + 1);
-        programCounter = nnn;
+        programCounter = (short) nnn;
     }
 
-    private void do3X(byte lowByte, byte x) {
+    void do3X(int nn, int x) {
         // 3XNN - Skips the next instruction if VX equals NN
-        if (ByteMath.equal(vRegister[x], lowByte)) {
+        if ((vRegister[x] & 0xFF) == nn) {
             programCounter += 2;
         }
     }
 
-    private void do4X(byte lowByte, byte x) {
+    void do4X(int nn, int x) {
         // 4XNN - Skips the next instruction if VX doesn't equal NN
-        if (!ByteMath.equal(vRegister[x], lowByte)) {
-            programCounter = (short) (programCounter + 2);
+        if ((vRegister[x] & 0xFF) != nn) {
+            programCounter += 2;
         }
     }
 
-    private void do5X(byte x, byte y) {
+    void do5X(int x, int y) {
         // 5XY0 - Skips the next instruction if VX equals VY.
         if (ByteMath.equal(vRegister[x], vRegister[y])) {
-            programCounter = (short) (programCounter + 2);
+            programCounter += 2;
         }
     }
 
-    private void do6X(byte lowByte, byte x) {
+    void do6X(int nn, int x) {
         // 6XNN - Sets VX to NN
-        vRegister[x] = lowByte;
+        vRegister[x] = (byte) nn;
     }
 
-    private void do7X(byte lowByte, byte x) {
+    void do7X(int nn, int x) {
         // 7XNN - Adds NN to VX
-        vRegister[x] = ByteMath.add(vRegister[x], lowByte);
-    }
-
-    @SuppressWarnings("EnhancedSwitchMigration")
-    private void do8XY(short n, short x, short y) {
-        switch (n) {
-            case 0x0:
-                // 8XY0 - Sets VX to the value of VY
-                vRegister[x] = vRegister[y];
-                break;
-            case 0x1:
-                // 8XY1 - Sets VX to VX or VY
-                vRegister[x] = (byte) ((vRegister[x] | vRegister[y]) & 0x00FF);
-                break;
-            case 0x2:
-                // 8XY2 - Sets VX to VX and VY
-                vRegister[x] = (byte) ((vRegister[x] & vRegister[y]) & 0x00FF);
-                break;
-            case 0x3:
-                // 8XY3 - Sets VX to VX xor VY
-                vRegister[x] = (byte) ((vRegister[x] ^ vRegister[y]) & 0x00FF);
-                break;
-            case 0x4:
-                /* 8XY4 -
-                 * Set Vx = Vx + Vy, set VF = carry.
-                 *
-                 * The values of Vx and Vy are added together. If the result is greater than
-                 * 8 bits (i.e., > 255,) VF is set to 1, otherwise 0. Only the lowest 8 bits of
-                 * the result are kept, and stored in Vx.
-                 */
-                short result = ByteMath.addWithOverflow(vRegister[x], vRegister[y]);
-                vRegister[0xF] = result > 255 ? (byte) 1 : (byte) 0;
-                vRegister[x] = (byte) (result & 0x00FF);
-                break;
-            case 0x5:
-                /*
-                 * 8xy5 - SUB Vx, Vy
-                 * Set Vx = Vx - Vy, set VF = NOT borrow.
-                 *
-                 * If Vx > Vy, then VF is set to 1, otherwise 0. Then Vy is subtracted from Vx, and the results stored in Vx.
-                 */
-                vRegister[0xF] = ByteMath.gt(vRegister[x], vRegister[y]) ? (byte) 1 : (byte) 0;
-                vRegister[x] = ByteMath.subtract(vRegister[x], vRegister[y]);
-                break;
-            case 0x6:
-                // 8XY6 - Shifts VX right by one. VF is set to the value of the least significant bit of VX before the shift
-                vRegister[0xF] = (byte) (vRegister[x] & 0b0001);
-                vRegister[x] = (byte) (vRegister[x] >> 1);
-                break;
-            case 0x7:
-                // 8XY7 - Sets VX to VY minus VX. VF is set to 0 when there's a borrow, and 1 when there isn't
-                vRegister[0xF] = ByteMath.gt(vRegister[y], vRegister[x]) ? (byte) 1 : (byte) 0;
-                vRegister[x] = ByteMath.subtract(vRegister[y], vRegister[x]);
-                break;
-            case 0xE:
-                // 8XYE - Store the value of register VX shifted left one bit in register VX
-                //Set register VF to the most significant bit prior to the shift
-                vRegister[0xF] = (byte) ((vRegister[x] & 0x00FF) >> 7);
-                vRegister[x] = (byte) (vRegister[x] << 1);
-                break;
-            default:
-                throw new IllegalArgumentException();
-        }
-    }
-
-    private void do9X(byte x, byte y) {
+        vRegister[x] = ByteMath.add(vRegister[x], (byte) nn);
+    }
+
+    void do8XY0(int x, int y) {
+        // 8XY0 - Sets VX to the value of VY
+        vRegister[x] = vRegister[y];
+    }
+
+    void do8XY1(int x, int y) {
+        // 8XY1 - Sets VX to VX or VY
+        vRegister[x] = (byte) ((vRegister[x] | vRegister[y]) & 0x00FF);
+    }
+
+    void do8XY2(int x, int y) {
+        // 8XY2 - Sets VX to VX and VY
+        vRegister[x] = (byte) ((vRegister[x] & vRegister[y]) & 0x00FF);
+    }
+
+    void do8XY3(int x, int y) {
+        // 8XY3 - Sets VX to VX xor VY
+        vRegister[x] = (byte) ((vRegister[x] ^ vRegister[y]) & 0x00FF);
+    }
+
+    void do8XY4(int x, int y) {
+        /* 8XY4 -
+         * Set Vx = Vx + Vy, set VF = carry.
+         *
+         * The values of Vx and Vy are added together. If the result is greater than
+         * 8 bits (i.e., > 255,) VF is set to 1, otherwise 0. Only the lowest 8 bits of
+         * the result are kept, and stored in Vx.
+         */
+        short result = ByteMath.addWithOverflow(vRegister[x], vRegister[y]);
+        vRegister[0xF] = result > 255 ? (byte) 1 : (byte) 0;
+        vRegister[x] = (byte) (result & 0x00FF);
+    }
+
+    void do8XY5(int x, int y) {
+        /*
+         * 8xy5 - SUB Vx, Vy
+         * Set Vx = Vx - Vy, set VF = NOT borrow.
+         *
+         * If Vx > Vy, then VF is set to 1, otherwise 0. Then Vy is subtracted from Vx, and the results stored in Vx.
+         */
+        vRegister[0xF] = ByteMath.gt(vRegister[x], vRegister[y]) ? (byte) 1 : (byte) 0;
+        vRegister[x] = ByteMath.subtract(vRegister[x], vRegister[y]);
+    }
+
+    void do8XY6(int x) {
+        // 8XY6 - Shifts VX right by one. VF is set to the value of the least significant bit of VX before the shift
+        vRegister[0xF] = (byte) (vRegister[x] & 0b0001);
+        vRegister[x] = (byte) (vRegister[x] >> 1);
+    }
+
+    void do8XY7(int x, int y) {
+        // 8XY7 - Sets VX to VY minus VX. VF is set to 0 when there's a borrow, and 1 when there isn't
+        vRegister[0xF] = ByteMath.gt(vRegister[y], vRegister[x]) ? (byte) 1 : (byte) 0;
+        vRegister[x] = ByteMath.subtract(vRegister[y], vRegister[x]);
+    }
+
+    void do8XYE(int x) {
+        // 8XYE - Store the value of register VX shifted left one bit in register VX
+        //Set register VF to the most significant bit prior to the shift
+        vRegister[0xF] = (byte) ((vRegister[x] & 0x00FF) >> 7);
+        vRegister[x] = (byte) (vRegister[x] << 1);
+    }
+
+    void do9X(int x, int y) {
         // 9XY0 - Skips the next instruction if VX doesn't equal VY
         if (!ByteMath.equal(vRegister[x], vRegister[y])) {
             programCounter += 2;
         }
     }
 
-    private void doAX(short nnn) {
+    void doAX(int nnn) {
         /*
          *  ANNN - LD I, addr
          *  Set I = nnn.
          *
          *  The value of register I is set to nnn.
          */
-        indexRegister = nnn;
+        indexRegister = (short) nnn;
     }
 
-    private void doBX(short nnn) {
+    void doBX(int nnn) {
         // BNNN - Jumps to the address NNN plus V0
-        programCounter = (short) (nnn + (((short) vRegister[0x0]) & 0x00FF));
+        programCounter = (short) (nnn + (vRegister[0x0] & 0x00FF));
     }
 
-    private void doCX(byte lowByte, byte x) {
+    void doCX(int nn, int x) {
         // CXNN - Sets VX to a random number and NN
-        short randomShort = (short) rng.nextInt(255);
-        vRegister[x] = (byte) ((randomShort & 0x00FF) & lowByte);
+        int random = nextRandom(255);
+        vRegister[x] = (byte) (random & nn);
     }
 
-    private void doDX(short n, short x, short y) {
+    void doDX(int n, int x, int y) {
         // DXYN - Draws a sprite at coordinate (VX, VY) that has a width of 8 pixels and a height of N pixels.
         // The interpreter reads n bytes from memory, starting at the address stored in I. These bytes are then displayed as sprites
         // on screen at coordinates (Vx, Vy). Sprites are XORed onto the existing screen. If this causes any pixels to
@@ -440,141 +1398,233 @@ public final class CPU {
         // coordinates of the display, it wraps around to the opposite side of the screen. See instruction 8xy3 for more
         // information on XOR, and section 2.4, Display, for more information on the Chip-8 screen and sprites.
 
-        int xCoord = vRegister[x] % 64;
-        int yCoord = vRegister[y] % 32;
+        int xCoord = (vRegister[x] & 0xFF) % 64;
+        int yCoord = (vRegister[y] & 0xFF) % 32;
         vRegister[0xF] = 0;
 
         for (int i = 0; i < n; i++) {
-            byte spriteLine =  memory[indexRegister + i];
-            boolean[] bitLine = new boolean[8];
-            bitLine[0] = ((byte) ((spriteLine & 0b1000_0000) >> 7)) == 1; // bit 8 (MSB)
-            bitLine[1] = ((byte) ((spriteLine & 0b0100_0000) >> 6)) == 1; // bit 6
-            bitLine[2] = ((byte) ((spriteLine & 0b0010_0000) >> 5)) == 1; // bit 6
-            bitLine[3] = ((byte) ((spriteLine & 0b0001_0000) >> 4)) == 1; // bit 5
-            bitLine[4] = ((byte) ((spriteLine & 0b0000_1000) >> 3)) == 1; // bit 4
-            bitLine[5] = ((byte) ((spriteLine & 0b0000_0100) >> 2)) == 1; // bit 3
-            bitLine[6] = ((byte) ((spriteLine & 0b0000_0010) >> 1)) == 1; // bit 2
-            bitLine[7] = ((byte) (spriteLine  & 0b0000_0001))       == 1; // bit 1 (LSB)
-
-            for (int j = 0; j < bitLine.length; j++) {
-                int actualY = yCoord + i;
-                if (actualY >= graphics.length) {
-                    continue;
-                }
-                int actualX = xCoord + j;
-                if (actualX >= graphics[actualY].length) {
-                    continue;
-                }
-                boolean current = graphics[actualY][actualX];
-                boolean newValue = bitLine[j];
-                if (current && newValue) {
-                    graphics[actualY][actualX] = false;
-                    vRegister[0xF] = 1; // collision
-                } else if (!current) {
-                    graphics[actualY][actualX] = newValue;
-                }
+            byte spriteLine = memory[indexRegister + i];
+            int actualY = yCoord + i;
+            if (actualY >= graphics.length) {
+                continue;
+            }
+            // line the sprite up under its pixels; anything past the right edge is shifted out and clipped
+            long spriteRow = ((spriteLine & 0xFFL) << 56) >>> xCoord;
+            if (spriteRow == 0) {
+                continue;
             }
+            if ((graphics[actualY] & spriteRow) != 0) {
+                vRegister[0xF] = 1; // collision
+            }
+            graphics[actualY] ^= spriteRow;
+            dirtyRows |= 1 << actualY;
         }
-        renderFlag = true;
     }
 
-    private void doEX(short n, short x) {
-        switch (n) {
-            case 0xE:
-                // EX9E - Skips the next instruction if the key stored in VX is pressed
-                if (keyboard.isPressed(vRegister[x])) {
-                    programCounter += 2;
-                }
-                break;
-            case 0x1:
-                // EXA1 - Skips the next instruction if the key stored in VX isn't pressed
-                if (!keyboard.isPressed(vRegister[x])) {
-                    programCounter += 2;
-                }
-                break;
-            default:
-                throw new IllegalArgumentException();
-        }
-    }
-
-    private void doFX(short lowByte, short x) {
-        switch (lowByte) {
-            case 0x07:
-                // FX07 - Sets VX to the value of the delay timer
-                vRegister[x] = (byte) ((delayTimer) & 0x00FF);
-                break;
-            case 0x0A:
-                // FX0A - A key press is awaited, and then stored in VX
-                vRegister[x] = keyboard.waitForKeyPress();
-                break;
-            case 0x15:
-                // FX15 - Sets the delay timer to VX
-                delayTimer = vRegister[x];
-                break;
-            case 0x18:
-                // FX18 - Sets the sound timer to VX
-                soundTimer = vRegister[x];
-                break;
-            case 0x1E:
-                // FX1E - Adds VX to I
-                indexRegister += (((short) vRegister[x]) & 0x00FF);
-                break;
-            case 0x29:
-                // FX29 - Sets I to the location of the sprite for the character in VX. Characters 0-F (in hexadecimal) are
-                // represented by a 4x5 font
-                indexRegister = (short) ((((short) vRegister[x]) & 0x00FF) * 5);
-                break;
-            case 0x33:
-                // FX33 - Stores the Binary-coded decimal representation of VX, with the most significant of three digits at
-                // the address in I, the middle digit at I plus 1, and the least significant digit at I plus 2. (In other
-                // words, take the decimal representation of VX, place the hundreds digit in memory at location in I, the tens
-                // digit at location I+1, and the ones digit at location I+2.)
-                short num = (short) ((short) vRegister[x] & 0x00FF);
-                memory[indexRegister] = (byte) (num / 100);
-                memory[indexRegister + 1] = (byte) ((num / 10) % 10);
-                memory[indexRegister + 2] = (byte) ((num % 100) % 10);
-                break;
-            case 0x55:
-                // FX55 - Stores V0 to VX in memory starting at address I
-                for (int registerIndex = 0; registerIndex <= x; registerIndex++) {
-                    int memoryIndex = indexRegister + registerIndex;
-                    memory[memoryIndex] = vRegister[registerIndex];
-                }
-                break;
-            case 0x65:
-                // FX65 - Fills V0 to VX with values from memory starting at address I
-                for (int registerIndex = 0; registerIndex <= x; registerIndex++) {
-                    int memoryIndex = indexRegister + registerIndex;
-                    vRegister[registerIndex] = memory[memoryIndex];
-                }
-                break;
-            default:
-                throw new IllegalArgumentException();
+    void doEX9E(int x) {
+        // EX9E - Skips the next instruction if the key stored in VX is pressed
+        if (isKeyPressed(vRegister[x])) {
+            programCounter += 2;
         }
     }
 
-    private void waitForSignal() {
-        assert lock.isLocked();
-        if (!wait) {
-            return;
+    void doEXA1(int x) {
+        // EXA1 - Skips the next instruction if the key stored in VX isn't pressed
+        if (!isKeyPressed(vRegister[x])) {
+            programCounter += 2;
         }
+    }
 
-        isWaiting = true;
-        while (isWaiting) {
-            try {
-                condition.await();
-            } catch (InterruptedException ignore) {}
+    void doFX07(int x) {
+        // FX07 - Sets VX to the value of the delay timer
+        vRegister[x] = (byte) delayTimer();
+    }
+
+    void doFX0A(int x) {
+        // FX0A - A key press is awaited, and then stored in VX. Rather than blocking the thread, the
+        // instruction is re-executed until a key is down.
+        byte keyPressed = firstKeyPressed();
+        if (keyPressed == -1) {
+            programCounter -= 2;
+            spinLength = 1;
+            idle = true;
+        } else {
+            vRegister[x] = keyPressed;
+        }
+    }
+
+    void doFX15(int x) {
+        // FX15 - Sets the delay timer to VX
+        delayExpiry = timerTicks + (vRegister[x] & 0xFF);
+    }
+
+    void doFX18(int x) {
+        // FX18 - Sets the sound timer to VX
+        soundExpiry = timerTicks + (vRegister[x] & 0xFF);
+    }
+
+    void doFX1E(int x) {
+        // FX1E - Adds VX to I
+        indexRegister += (vRegister[x] & 0x00FF);
+    }
+
+    void doFX29(int x) {
+        // FX29 - Sets I to the location of the sprite for the character in VX. Characters 0-F (in hexadecimal) are
+        // represented by a 4x5 font
+        indexRegister = (short) ((vRegister[x] & 0x00FF) * 5);
+    }
+
+    void doFX33(int x) {
+        // FX33 - Stores the Binary-coded decimal representation of VX, with the most significant of three digits at
+        // the address in I, the middle digit at I plus 1, and the least significant digit at I plus 2. (In other
+        // words, take the decimal representation of VX, place the hundreds digit in memory at location in I, the tens
+        // digit at location I+1, and the ones digit at location I+2.)
+        int num = vRegister[x] & 0x00FF;
+        memory[indexRegister] = (byte) (num / 100);
+        memory[indexRegister + 1] = (byte) ((num / 10) % 10);
+        memory[indexRegister + 2] = (byte) ((num % 100) % 10);
+        refreshDecoded(indexRegister, indexRegister + 2);
+    }
+
+    void doFX55(int x) {
+        // FX55 - Stores V0 to VX in memory starting at address I
+        for (int registerIndex = 0; registerIndex <= x; registerIndex++) {
+            int memoryIndex = indexRegister + registerIndex;
+            memory[memoryIndex] = vRegister[registerIndex];
+        }
+        refreshDecoded(indexRegister, indexRegister + x);
+    }
+
+    void doFX65(int x) {
+        // FX65 - Fills V0 to VX with values from memory starting at address I
+        for (int registerIndex = 0; registerIndex <= x; registerIndex++) {
+            int memoryIndex = indexRegister + registerIndex;
+            vRegister[registerIndex] = memory[memoryIndex];
         }
     }
 
+    static long checksum(byte[] rom) {
+        CRC32 crc = new CRC32();
+        crc.update(rom);
+        return crc.getValue();
+    }
+
+    /**
+     * Whether the key test at {@code address}, followed by a jump back to it, would not skip the jump again.
+     */
+    private boolean spinsOnKey(int address) {
+        int test = decoded[address];
+        return switch (Decoder.handler(test)) {
+            case Decoder.OP_EX9E -> !isKeyPressed(vRegister[Decoder.x(test)]);
+            case Decoder.OP_EXA1 -> isKeyPressed(vRegister[Decoder.x(test)]);
+            default -> false;
+        };
+    }
+
+    /**
+     * Whether {@code key} is down: live from the input device, or as latched at the last frame boundary while input
+     * is recorded or replayed.
+     */
+    private boolean isKeyPressed(byte key) {
+        if (inputLog == null) {
+            return keyboard.isPressed(key);
+        }
+        return key >= 0 && key < 16 && (latchedKeys & 1 << key) != 0;
+    }
+
+    /**
+     * The lowest key down, or -1 if none is, latched the same way as {@link #isKeyPressed(byte)}.
+     */
+    private byte firstKeyPressed() {
+        if (inputLog == null) {
+            return keyboard.firstKeyPressed();
+        }
+        return latchedKeys == 0 ? -1 : (byte) Integer.numberOfTrailingZeros(latchedKeys);
+    }
+
+    private int nextRandom(int bound) {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) ((z >>> 1) % bound);
+    }
+
+    int delayTimer() {
+        return (int) Math.max(0, delayExpiry - timerTicks);
+    }
+
+    int soundTimer() {
+        return (int) Math.max(0, soundExpiry - timerTicks);
+    }
+
+    void setProgramCounter(int programCounter) {
+        this.programCounter = (short) programCounter;
+    }
+
+    /**
+     * Whether any byte in {@code [from, to]} may have been written since the ROM was loaded, at page granularity.
+     */
+    boolean isCodeModified(int from, int to) {
+        return (modifiedPages & pageMask(from, to)) != 0;
+    }
+
+    /**
+     * Applies the commands queued by other threads. The emulation thread calls this between batches, so the batch
+     * itself runs without locks.
+     */
+    void runCommands() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            command.run();
+        }
+    }
+
+    /**
+     * Runs what the emulation thread runs for one scheduled frame of a running machine: the queued single steps while
+     * paused, otherwise a frame (a slice of frames in turbo mode).
+     */
+    ExecutionResult runNextBatch() {
+        if (wait) {
+            return runPendingSteps();
+        }
+        if (steppedCycles != 0) {
+            // resumed in the middle of a single-stepped frame: finish it first, so every frame boundary stays where
+            // replaying the session with runFrames puts it
+            int cycles = Math.max(0, cyclesPerFrame - steppedCycles);
+            steppedCycles = 0;
+            ExecutionResult result = runCycles(cycles);
+            endFrame();
+            return result;
+        }
+        return turbo ? runFrames(TURBO_SLICE_FRAMES) : runFrame();
+    }
+
+    /**
+     * Whether the last batch left the program waiting on input or on nothing at all, with no key change latched since,
+     * so the emulation thread may sleep until the next key event or command.
+     */
+    boolean canIdle() {
+        return idle && !wait && delayTimer() == 0 && soundTimer() == 0;
+    }
+
+    // -------------------- Private Methods --------------------
+
+    private static long pageMask(int from, int to) {
+        int firstPage = Math.max(0, from) / BlockCache.PAGE_SIZE;
+        int lastPage = Math.min(4095, to) / BlockCache.PAGE_SIZE;
+        long mask = -1L >>> (63 - (lastPage - firstPage));
+        return mask << firstPage;
+    }
+
     private void fireStarted() {
-        for (DebuggerListener l : ll.getListeners(DebuggerListener.class)) {
+        for (DebuggerListener l : debuggerListeners) {
             l.machineStarted();
         }
     }
 
     private void fireStopped() {
-        for (DebuggerListener l : ll.getListeners(DebuggerListener.class)) {
+        for (DebuggerListener l : debuggerListeners) {
             l.machineStopped();
         }
     }
@@ -584,7 +1634,7 @@ public final class CPU {
         byte[] registerCopy = new byte[vRegister.length];
         System.arraycopy(vRegister, 0, registerCopy, 0, vRegister.length);
         MachineState state = new MachineState(initialState, programCounter, registerCopy);
-        for (DebuggerListener l : ll.getListeners(DebuggerListener.class)) {
+        for (DebuggerListener l : debuggerListeners) {
             l.machineStateChanged(state);
         }
     }
@@ -593,16 +1643,20 @@ public final class CPU {
         byte[] registerCopy = new byte[vRegister.length];
         System.arraycopy(vRegister, 0, registerCopy, 0, vRegister.length);
         MachineState state = new MachineState(operationState, programCounter, registerCopy);
-        for (DebuggerListener l : ll.getListeners(DebuggerListener.class)) {
+        for (DebuggerListener l : debuggerListeners) {
             l.machineStateChanged(state);
         }
     }
 
     private void fireRenderNeeded() {
-        boolean[][] graphicsCopy = new boolean[32][64];
-        arrayCopy(graphics, graphicsCopy);
-        for (RenderListener l : ll.getListeners(RenderListener.class)) {
-            l.render(graphicsCopy);
+        int changedRows = dirtyRows;
+        dirtyRows = 0;
+        if (renderListeners.isEmpty()) {
+            return;
+        }
+        long[] graphicsCopy = graphics.clone();
+        for (RenderListener l : renderListeners) {
+            l.render(graphicsCopy, changedRows);
         }
     }
 
@@ -0,0 +1,11 @@
+package chip8.cpu;
+
+/**
+ * A basic block recompiled to JVM bytecode by {@link BlockCompiler}. Implementations are hidden nestmates of
+ * {@link CPU} and operate directly on its fields.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+interface CompiledBlock {
+    void run(CPU cpu);
+}
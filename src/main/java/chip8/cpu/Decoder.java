@@ -0,0 +1,144 @@
+package chip8.cpu;
+
+/**
+ * Decodes opcodes into a packed {@code int} holding a handler id and the operand fields, so the interpreter can
+ * dispatch with a single switch and no allocation.
+ * <pre>
+ *   bits  0-7   handler id
+ *   bits  8-11  x
+ *   bits 12-15  y
+ *   bits 16-27  nnn (nn and n are its low 8 and 4 bits)
+ *   bits 28-31  unused here, see Peephole
+ * </pre>
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class Decoder {
+
+    // -------------------- Statics --------------------
+
+    static final int INVALID = 0;
+    static final int EMPTY = 1;   // 0000 - end of program
+    static final int OP_00E0 = 2;
+    static final int OP_00EE = 3;
+    static final int OP_0NNN = 4;
+    static final int OP_1NNN = 5;
+    static final int OP_2NNN = 6;
+    static final int OP_3XNN = 7;
+    static final int OP_4XNN = 8;
+    static final int OP_5XY0 = 9;
+    static final int OP_6XNN = 10;
+    static final int OP_7XNN = 11;
+    static final int OP_8XY0 = 12;
+    static final int OP_8XY1 = 13;
+    static final int OP_8XY2 = 14;
+    static final int OP_8XY3 = 15;
+    static final int OP_8XY4 = 16;
+    static final int OP_8XY5 = 17;
+    static final int OP_8XY6 = 18;
+    static final int OP_8XY7 = 19;
+    static final int OP_8XYE = 20;
+    static final int OP_9XY0 = 21;
+    static final int OP_ANNN = 22;
+    static final int OP_BNNN = 23;
+    static final int OP_CXNN = 24;
+    static final int OP_DXYN = 25;
+    static final int OP_EX9E = 26;
+    static final int OP_EXA1 = 27;
+    static final int OP_FX07 = 28;
+    static final int OP_FX0A = 29;
+    static final int OP_FX15 = 30;
+    static final int OP_FX18 = 31;
+    static final int OP_FX1E = 32;
+    static final int OP_FX29 = 33;
+    static final int OP_FX33 = 34;
+    static final int OP_FX55 = 35;
+    static final int OP_FX65 = 36;
+
+    // -------------------- Default Static Methods --------------------
+
+    static int decode(byte highByte, byte lowByte) {
+        int opcode = ((highByte & 0xFF) << 8) | (lowByte & 0xFF);
+        int n = opcode & 0x000F;
+        int nn = opcode & 0x00FF;
+        int handler = switch (opcode >>> 12) {
+            case 0x0 -> switch (opcode) {
+                case 0x0000 -> EMPTY;
+                case 0x00E0 -> OP_00E0;
+                case 0x00EE -> OP_00EE;
+                default -> OP_0NNN;
+            };
+            case 0x1 -> OP_1NNN;
+            case 0x2 -> OP_2NNN;
+            case 0x3 -> OP_3XNN;
+            case 0x4 -> OP_4XNN;
+            case 0x5 -> OP_5XY0;
+            case 0x6 -> OP_6XNN;
+            case 0x7 -> OP_7XNN;
+            case 0x8 -> switch (n) {
+                case 0x0 -> OP_8XY0;
+                case 0x1 -> OP_8XY1;
+                case 0x2 -> OP_8XY2;
+                case 0x3 -> OP_8XY3;
+                case 0x4 -> OP_8XY4;
+                case 0x5 -> OP_8XY5;
+                case 0x6 -> OP_8XY6;
+                case 0x7 -> OP_8XY7;
+                case 0xE -> OP_8XYE;
+                default -> INVALID;
+            };
+            case 0x9 -> OP_9XY0;
+            case 0xA -> OP_ANNN;
+            case 0xB -> OP_BNNN;
+            case 0xC -> OP_CXNN;
+            case 0xD -> OP_DXYN;
+            case 0xE -> switch (n) {
+                case 0xE -> OP_EX9E;
+                case 0x1 -> OP_EXA1;
+                default -> INVALID;
+            };
+            case 0xF -> switch (nn) {
+                case 0x07 -> OP_FX07;
+                case 0x0A -> OP_FX0A;
+                case 0x15 -> OP_FX15;
+                case 0x18 -> OP_FX18;
+                case 0x1E -> OP_FX1E;
+                case 0x29 -> OP_FX29;
+                case 0x33 -> OP_FX33;
+                case 0x55 -> OP_FX55;
+                case 0x65 -> OP_FX65;
+                default -> INVALID;
+            };
+            default -> INVALID;
+        };
+        return handler | (((opcode >>> 8) & 0xF) << 8) | (((opcode >>> 4) & 0xF) << 12) | ((opcode & 0x0FFF) << 16);
+    }
+
+    static int handler(int instruction) {
+        return instruction & 0xFF;
+    }
+
+    static int x(int instruction) {
+        return (instruction >>> 8) & 0xF;
+    }
+
+    static int y(int instruction) {
+        return (instruction >>> 12) & 0xF;
+    }
+
+    static int nnn(int instruction) {
+        return (instruction >>> 16) & 0xFFF;
+    }
+
+    static int nn(int instruction) {
+        return (instruction >>> 16) & 0xFF;
+    }
+
+    static int n(int instruction) {
+        return (instruction >>> 16) & 0xF;
+    }
+
+    // -------------------- Constructors --------------------
+
+    private Decoder() {}
+}
@@ -0,0 +1,17 @@
+package chip8.cpu;
+
+/**
+ * How {@link CPU#runCycles(int)} executes instructions.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public enum ExecutionMode {
+    /** One decoded instruction per dispatch. */
+    INTERPRETER,
+    /** Whole straight-line basic blocks per dispatch, translated once into bound handlers. */
+    BLOCK_CACHE,
+    /** As {@link #BLOCK_CACHE}, but hot blocks are recompiled to JVM bytecode. */
+    RECOMPILER,
+    /** Blocks recompiled ahead of time by {@link StaticRecompiler}, see {@link CPU#setStaticProgram}. */
+    STATIC
+}
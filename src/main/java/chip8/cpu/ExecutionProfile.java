@@ -0,0 +1,98 @@
+package chip8.cpu;
+
+/**
+ * Throughput and time-per-subsystem counters for a {@link CPU} run, used by turbo mode to report how fast the core
+ * goes. All methods must be called from the thread that drives the CPU.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class ExecutionProfile {
+
+    // -------------------- Private Variables --------------------
+
+    private final long startNanos = System.nanoTime();
+    private long instructions;
+    private long frames;
+    private final long[] subsystemNanos = new long[Subsystem.values().length];
+
+    // totals at the start of the current reporting interval
+    private long intervalStartNanos = startNanos;
+    private long intervalInstructions;
+    private long intervalFrames;
+    private final long[] intervalSubsystemNanos = new long[Subsystem.values().length];
+
+    // -------------------- Public Methods --------------------
+
+    public final long getInstructions() {
+        return instructions;
+    }
+
+    public final long getFrames() {
+        return frames;
+    }
+
+    public final long getNanos(Subsystem subsystem) {
+        return subsystemNanos[subsystem.ordinal()];
+    }
+
+    /**
+     * Whether at least {@code intervalNanos} have passed since the last {@link #intervalReport()}.
+     */
+    public final boolean isIntervalElapsed(long intervalNanos) {
+        return System.nanoTime() - intervalStartNanos >= intervalNanos;
+    }
+
+    /**
+     * Sustained rates and time split since the profile was created.
+     */
+    public final String report() {
+        return format(System.nanoTime() - startNanos, instructions, frames, subsystemNanos);
+    }
+
+    /**
+     * Rates and time split since the previous call (or since the profile was created), then starts a new interval.
+     */
+    public final String intervalReport() {
+        long now = System.nanoTime();
+        long[] nanos = new long[subsystemNanos.length];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = subsystemNanos[i] - intervalSubsystemNanos[i];
+        }
+        String report = format(now - intervalStartNanos, instructions - intervalInstructions, frames - intervalFrames, nanos);
+
+        intervalStartNanos = now;
+        intervalInstructions = instructions;
+        intervalFrames = frames;
+        System.arraycopy(subsystemNanos, 0, intervalSubsystemNanos, 0, subsystemNanos.length);
+        return report;
+    }
+
+    // -------------------- Default Methods --------------------
+
+    final void countFrame(int instructionsExecuted) {
+        instructions += instructionsExecuted;
+        frames++;
+    }
+
+    final void addTime(Subsystem subsystem, long nanos) {
+        subsystemNanos[subsystem.ordinal()] += nanos;
+    }
+
+    // -------------------- Private Methods --------------------
+
+    private static String format(long elapsedNanos, long instructions, long frames, long[] nanos) {
+        double seconds = Math.max(1, elapsedNanos) / 1e9;
+        StringBuilder sb = new StringBuilder("%.2f MIPS, %.1f FPS".formatted(instructions / seconds / 1e6, frames / seconds));
+        for (Subsystem subsystem : Subsystem.values()) {
+            double share = 100.0 * nanos[subsystem.ordinal()] / Math.max(1, elapsedNanos);
+            sb.append(", %s %.1f%%".formatted(subsystem.name().toLowerCase(), share));
+        }
+        return sb.toString();
+    }
+
+    // -------------------- Inner Classes --------------------
+
+    public enum Subsystem {
+        CPU, TIMERS, RENDER
+    }
+}
@@ -0,0 +1,195 @@
+package chip8.cpu;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Everything from outside the machine that a {@link CPU} session depended on: the random seed, and the keys held and
+ * the cycles per frame at every frame boundary where they changed. Recorded by {@link CPU#recordInput(InputLog)} and
+ * fed back by {@link CPU#replayInput(InputLog)}, which together with the ROM reproduces the session bit for bit.
+ * <p>
+ * Stored as text so it can be attached to a bug report and read by a person:
+ * <pre>
+ *   chip8-input-log 1
+ *   rom 00000000c0ffee42
+ *   seed 2b8f6a1d0e93c4b7
+ *   frames 3600
+ *   0 cycles 8
+ *   0 keys 0000
+ *   412 keys 0020
+ * </pre>
+ * Frames count 60 Hz frame boundaries since the ROM was loaded.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class InputLog {
+
+    // -------------------- Default Statics --------------------
+
+    static final int KEYS = 0;
+    static final int CYCLES_PER_FRAME = 1;
+
+    // -------------------- Private Statics --------------------
+
+    private static final String HEADER = "chip8-input-log 1";
+    private static final String[] KIND_NAMES = {"keys", "cycles"};
+
+    // -------------------- Private Variables --------------------
+
+    private final long seed;
+    private long romChecksum;
+    private long frames = -1;
+
+    private long[] eventFrames = new long[64];
+    private int[] eventKinds = new int[64];
+    private int[] eventValues = new int[64];
+    private int size;
+
+    // replay position
+    private int cursor;
+
+    // -------------------- Constructors --------------------
+
+    /**
+     * An empty log for a session whose random number generator starts from {@code seed}.
+     */
+    public InputLog(long seed) {
+        this.seed = seed;
+    }
+
+    // -------------------- Public Statics --------------------
+
+    public static InputLog read(Path path) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Input log '%s' could not be read.".formatted(path), e);
+        }
+        if (lines.size() < 4 || !lines.get(0).equals(HEADER)) {
+            throw new IllegalArgumentException("'%s' is not an input log.".formatted(path));
+        }
+        InputLog log = new InputLog(Long.parseUnsignedLong(value(lines.get(2), "seed"), 16));
+        log.romChecksum = Long.parseUnsignedLong(value(lines.get(1), "rom"), 16);
+        log.frames = Long.parseLong(value(lines.get(3), "frames"));
+        for (String line : lines.subList(4, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.trim().split("\\s+");
+            int kind = Arrays.asList(KIND_NAMES).indexOf(fields.length == 3 ? fields[1] : "");
+            if (kind < 0) {
+                throw new IllegalArgumentException("Malformed input log entry: " + line);
+            }
+            int value = kind == KEYS ? Integer.parseInt(fields[2], 16) : Integer.parseInt(fields[2]);
+            log.add(Long.parseLong(fields[0]), kind, value);
+        }
+        return log;
+    }
+
+    // -------------------- Public Methods --------------------
+
+    public final void write(Path path) {
+        List<String> lines = new ArrayList<>(size + 4);
+        lines.add(HEADER);
+        lines.add("rom %016x".formatted(romChecksum));
+        lines.add("seed %016x".formatted(seed));
+        lines.add("frames " + frames);
+        for (int i = 0; i < size; i++) {
+            String value = eventKinds[i] == KEYS ? "%04x".formatted(eventValues[i]) : String.valueOf(eventValues[i]);
+            lines.add("%d %s %s".formatted(eventFrames[i], KIND_NAMES[eventKinds[i]], value));
+        }
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.write(path, lines);
+        } catch (IOException e) {
+            throw new RuntimeException("Input log '%s' could not be written.".formatted(path), e);
+        }
+    }
+
+    public final long getSeed() {
+        return seed;
+    }
+
+    public final long getRomChecksum() {
+        return romChecksum;
+    }
+
+    /**
+     * Length of the recorded session in frames, or -1 while it is still being recorded.
+     */
+    public final long getFrames() {
+        return frames;
+    }
+
+    // -------------------- Default Methods --------------------
+
+    final void begin(long romChecksum) {
+        this.romChecksum = romChecksum;
+        this.frames = -1;
+        this.size = 0;
+        this.cursor = 0;
+    }
+
+    final void end(long frames) {
+        this.frames = frames;
+    }
+
+    final void add(long frame, int kind, int value) {
+        if (size == eventFrames.length) {
+            eventFrames = Arrays.copyOf(eventFrames, size * 2);
+            eventKinds = Arrays.copyOf(eventKinds, size * 2);
+            eventValues = Arrays.copyOf(eventValues, size * 2);
+        }
+        eventFrames[size] = frame;
+        eventKinds[size] = kind;
+        eventValues[size] = value;
+        size++;
+    }
+
+    final void rewind() {
+        cursor = 0;
+    }
+
+    /**
+     * Whether an event not yet returned by {@link #next()} is due at or before {@code frame}.
+     */
+    final boolean hasEventAt(long frame) {
+        return cursor < size && eventFrames[cursor] <= frame;
+    }
+
+    /**
+     * Frame of the next event not yet returned by {@link #next()}, or {@link Long#MAX_VALUE} if there is none.
+     */
+    final long nextEventFrame() {
+        return cursor < size ? eventFrames[cursor] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Advances past the next event and returns its index for {@link #kind(int)} and {@link #value(int)}.
+     */
+    final int next() {
+        return cursor++;
+    }
+
+    final int kind(int event) {
+        return eventKinds[event];
+    }
+
+    final int value(int event) {
+        return eventValues[event];
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static String value(String line, String key) {
+        if (!line.startsWith(key + " ")) {
+            throw new IllegalArgumentException("Expected '%s' in input log: %s".formatted(key, line));
+        }
+        return line.substring(key.length() + 1).trim();
+    }
+}
@@ -0,0 +1,86 @@
+package chip8.cpu;
+
+/**
+ * Peephole pass over the decoded instruction table. For each address it either returns 0, meaning the instruction
+ * there is executed on its own, or a fused entry: the first instruction's packed fields with the superinstruction's
+ * handler id and the number of instructions it spans in bits 28-31. The operands of the remaining instructions are
+ * read back from the decoded table when the superinstruction executes.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class Peephole {
+
+    // -------------------- Statics --------------------
+
+    static final int FUSED_LOAD_AND_DRAW = 40;
+    static final int FUSED_LOAD_RUN = 41;
+    static final int FUSED_ADD_AND_SKIP = 42;
+    static final int FUSED_DELAY_POLL = 43;
+
+    /** The longest span of a fused entry in instructions; a write can affect entries this far before it. */
+    static final int MAX_SPAN = 15;
+
+    // -------------------- Default Static Methods --------------------
+
+    static int fuse(int[] decoded, int address) {
+        int first = Decoder.handler(decoded[address]);
+        int second = handlerAt(decoded, address + 2);
+        return switch (first) {
+            case Decoder.OP_FX07 -> isDelayPoll(decoded, address) ? pack(decoded[address], FUSED_DELAY_POLL, 3) : 0;
+            case Decoder.OP_ANNN -> second == Decoder.OP_DXYN ? pack(decoded[address], FUSED_LOAD_AND_DRAW, 2) : 0;
+            case Decoder.OP_7XNN -> second == Decoder.OP_3XNN ? pack(decoded[address], FUSED_ADD_AND_SKIP, 2) : 0;
+            case Decoder.OP_6XNN -> {
+                int length = 1;
+                while (length < MAX_SPAN && handlerAt(decoded, address + length * 2) == Decoder.OP_6XNN) {
+                    length++;
+                }
+                yield length > 1 ? pack(decoded[address], FUSED_LOAD_RUN, length) : 0;
+            }
+            default -> 0;
+        };
+    }
+
+    static int length(int fused) {
+        return fused >>> 28;
+    }
+
+    static Superinstruction kind(int fused) {
+        return switch (Decoder.handler(fused)) {
+            case FUSED_LOAD_AND_DRAW -> Superinstruction.LOAD_AND_DRAW;
+            case FUSED_LOAD_RUN -> Superinstruction.LOAD_RUN;
+            case FUSED_ADD_AND_SKIP -> Superinstruction.ADD_AND_SKIP;
+            case FUSED_DELAY_POLL -> Superinstruction.DELAY_POLL;
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    /**
+     * Whether {@code address} starts the delay-timer poll {@code FX07; 3X00; 1NNN} with the jump going back to the
+     * FX07, a loop that spins until the delay timer reaches zero.
+     */
+    static boolean isDelayPoll(int[] decoded, int address) {
+        if (address + 4 >= decoded.length - 1) {
+            return false;
+        }
+        int load = decoded[address];
+        int skip = decoded[address + 2];
+        int jump = decoded[address + 4];
+        return Decoder.handler(load) == Decoder.OP_FX07
+                && Decoder.handler(skip) == Decoder.OP_3XNN && Decoder.x(skip) == Decoder.x(load) && Decoder.nn(skip) == 0
+                && Decoder.handler(jump) == Decoder.OP_1NNN && Decoder.nnn(jump) == address;
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static int handlerAt(int[] decoded, int address) {
+        return address < decoded.length - 1 ? Decoder.handler(decoded[address]) : Decoder.INVALID;
+    }
+
+    private static int pack(int instruction, int handler, int length) {
+        return (instruction & 0x0FFFFF00) | handler | (length << 28);
+    }
+
+    // -------------------- Constructors --------------------
+
+    private Peephole() {}
+}
@@ -0,0 +1,69 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import chip8.util.Utilities;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Headless replay of a recorded session (see {@link CPU#recordInput(InputLog)}) with no clock pacing. Prints how
+ * fast it went and checksums of the final framebuffer and machine state, which match across runs, machines and
+ * execution modes when the replay reproduces the session. The GUI records the last session of each ROM under
+ * {@code replays} next to its properties file.
+ * <pre>
+ *   java -cp build/classes/java/main chip8.cpu.ReplayRunner pong.ch8 pong.ch8.input [mode]
+ * </pre>
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class ReplayRunner {
+
+    // -------------------- Private Statics --------------------
+
+    private static final int FRAMES_PER_SLICE = 60;
+
+    // -------------------- Main Method --------------------
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: ReplayRunner <rom.ch8> <input log> [INTERPRETER|BLOCK_CACHE|RECOMPILER]");
+            System.exit(2);
+        }
+        File romFile = new File(args[0]);
+        if (!romFile.exists()) {
+            throw new RuntimeException("File '%s' not found!".formatted(romFile.toPath()));
+        }
+        InputLog log = InputLog.read(Path.of(args[1]));
+        if (log.getFrames() < 0) {
+            throw new IllegalArgumentException("Input log '%s' has no recorded length.".formatted(args[1]));
+        }
+
+        CPU cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        if (args.length > 2) {
+            cpu.setExecutionMode(ExecutionMode.valueOf(args[2]));
+        }
+        cpu.load(Utilities.readBytes(romFile));
+        cpu.replayInput(log);
+
+        long start = System.nanoTime();
+        ExecutionResult result = ExecutionResult.OK;
+        while (result == ExecutionResult.OK && cpu.getFrameCount() < log.getFrames()) {
+            result = cpu.runFrames((int) Math.min(FRAMES_PER_SLICE, log.getFrames() - cpu.getFrameCount()));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] frame = new long[32];
+        cpu.copyFrame(frame);
+        SaveState state = new SaveState();
+        cpu.saveState(state);
+        CRC32 stateCrc = new CRC32();
+        stateCrc.update(state.toByteArray());
+
+        System.out.printf("%s: %d frames in %.2f s (%.0fx real time, %s)%n", romFile.getName(), cpu.getFrameCount(),
+                seconds, cpu.getFrameCount() / 60.0 / Math.max(seconds, 1e-9), result);
+        System.out.printf("framebuffer %08x, state %08x%n", Utilities.hashFrame(frame), stateCrc.getValue());
+    }
+}
@@ -0,0 +1,257 @@
+package chip8.cpu;
+
+/**
+ * Bounded history of {@link CPU} states, one per frame, for stepping backwards in time. Every
+ * {@code keyframeInterval}-th state is stored as a keyframe, the others as the difference from their keyframe. Both
+ * are XORed (a keyframe against zero) and run-length encoded, so the bytes a frame did not change cost almost nothing
+ * and a frame that only moves a sprite takes a couple of hundred bytes. Encoded states live back to back in a single
+ * arena of {@code capacityBytes}; when it is full, the oldest keyframe and the frames that depend on it are dropped.
+ * <p>
+ * Nothing is allocated after construction, so recording and rewinding at 60 frames per second produce no garbage.
+ * Not thread-safe; call it from the thread driving the CPU.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class RewindBuffer {
+
+    // -------------------- Private Statics --------------------
+
+    private static final int STATE_SIZE = SaveState.SIZE;
+
+    // the smallest an encoded state can be, used to size the entry table
+    private static final int MIN_ENTRY_BYTES = 8;
+
+    // runs of fewer zero bytes than this are cheaper to keep inside a literal
+    private static final int MIN_ZERO_RUN = 3;
+
+    private static final byte[] ZEROES = new byte[STATE_SIZE];
+
+    // -------------------- Private Variables --------------------
+
+    private final byte[] arena;
+    private final int keyframeInterval;
+
+    // entry table, a ring of count entries starting at oldest
+    private final int[] entryOffset;
+    private final int[] entryLength;
+    private final int[] entryPosition; // frames since the entry's keyframe, 0 for a keyframe
+    private int oldest;
+    private int count;
+    private int head; // arena offset the next entry is written at
+
+    // the keyframe of the newest entry, decoded
+    private final byte[] keyframe = new byte[STATE_SIZE];
+
+    // scratch space
+    private final SaveState state = new SaveState();
+    private final byte[] encoded = new byte[STATE_SIZE * 2];
+
+    // -------------------- Constructors --------------------
+
+    /**
+     * @param capacityBytes    memory the encoded history may use
+     * @param keyframeInterval frames from one keyframe to the next; longer intervals use less memory per second while
+     *                         the screen is mostly static but make each frame's difference grow over the interval
+     */
+    public RewindBuffer(int capacityBytes, int keyframeInterval) {
+        if (capacityBytes < STATE_SIZE * 4) {
+            throw new IllegalArgumentException("Rewind buffer must hold at least %d bytes: %d"
+                    .formatted(STATE_SIZE * 4, capacityBytes));
+        }
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.arena = new byte[capacityBytes];
+        this.keyframeInterval = keyframeInterval;
+        int maxEntries = capacityBytes / MIN_ENTRY_BYTES;
+        this.entryOffset = new int[maxEntries];
+        this.entryLength = new int[maxEntries];
+        this.entryPosition = new int[maxEntries];
+    }
+
+    // -------------------- Public Methods --------------------
+
+    /**
+     * Records the current state of {@code cpu} as the newest frame.
+     */
+    public final void push(CPU cpu) {
+        cpu.saveState(state);
+        byte[] current = state.data();
+        int position = count == 0 ? 0 : (entryPosition[newest()] + 1) % keyframeInterval;
+        int length = encode(current, position == 0 ? ZEROES : keyframe);
+        int start = makeRoom(length);
+        if (position != 0 && count == 0) {
+            // making room dropped this frame's keyframe: store it as a keyframe instead
+            position = 0;
+            length = encode(current, ZEROES);
+            start = makeRoom(length);
+        }
+        if (position == 0) {
+            System.arraycopy(current, 0, keyframe, 0, STATE_SIZE);
+        }
+
+        System.arraycopy(encoded, 0, arena, start, length);
+        int entry = (oldest + count) % entryOffset.length;
+        entryOffset[entry] = start;
+        entryLength[entry] = length;
+        entryPosition[entry] = position;
+        count++;
+        head = start + length;
+    }
+
+    /**
+     * Drops the newest frame and puts {@code cpu} back in the state of the one before it.
+     *
+     * @return false, leaving {@code cpu} untouched, if there is no earlier frame to go back to
+     */
+    public final boolean stepBack(CPU cpu) {
+        if (count < 2) {
+            return false;
+        }
+        int dropped = newest();
+        head = entryOffset[dropped];
+        count--;
+
+        int entry = newest();
+        if (entryPosition[dropped] == 0) {
+            // went back across a keyframe: the newest frame now belongs to the previous one
+            int keyframeEntry = Math.floorMod(entry - entryPosition[entry], entryOffset.length);
+            decode(keyframeEntry, ZEROES, keyframe);
+        }
+        if (entryPosition[entry] == 0) {
+            System.arraycopy(keyframe, 0, state.data(), 0, STATE_SIZE);
+        } else {
+            decode(entry, keyframe, state.data());
+        }
+        cpu.restoreState(state);
+        return true;
+    }
+
+    public final void clear() {
+        oldest = 0;
+        count = 0;
+        head = 0;
+    }
+
+    /**
+     * Number of frames that can currently be stepped back through.
+     */
+    public final int getFrames() {
+        return Math.max(0, count - 1);
+    }
+
+    /**
+     * Arena bytes held by recorded frames.
+     */
+    public final int getBytesUsed() {
+        if (count == 0) {
+            return 0;
+        }
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            used += entryLength[(oldest + i) % entryOffset.length];
+        }
+        return used;
+    }
+
+    // -------------------- Private Methods --------------------
+
+    private int newest() {
+        return (oldest + count - 1) % entryOffset.length;
+    }
+
+    /**
+     * Drops the oldest keyframes and their frames until {@code length} bytes fit at the head of the arena, and returns
+     * where they go.
+     */
+    private int makeRoom(int length) {
+        boolean wraps = head + length > arena.length;
+        int start = wraps ? 0 : head;
+        while (count > 0) {
+            int offset = entryOffset[oldest];
+            boolean overlaps = wraps
+                    ? offset >= head || offset < length
+                    : offset >= head && offset < head + length;
+            if (!overlaps && count < entryOffset.length) {
+                break;
+            }
+            dropOldestKeyframe();
+        }
+        return start;
+    }
+
+    private void dropOldestKeyframe() {
+        do {
+            oldest = (oldest + 1) % entryOffset.length;
+            count--;
+        } while (count > 0 && entryPosition[oldest] != 0);
+    }
+
+    /**
+     * Encodes {@code current ^ base} into {@link #encoded} as alternating runs: a varint count of unchanged bytes,
+     * then a varint count of changed bytes followed by their XOR values. Returns the encoded length.
+     */
+    private int encode(byte[] current, byte[] base) {
+        int out = 0;
+        int i = 0;
+        while (i < STATE_SIZE) {
+            int zeroStart = i;
+            while (i < STATE_SIZE && current[i] == base[i]) {
+                i++;
+            }
+            int literalStart = i;
+            int zeroes = 0;
+            while (i < STATE_SIZE && zeroes < MIN_ZERO_RUN) {
+                zeroes = current[i] == base[i] ? zeroes + 1 : 0;
+                i++;
+            }
+            if (zeroes == MIN_ZERO_RUN) {
+                i -= zeroes;
+            }
+            out = putVarint(literalStart - zeroStart, out);
+            out = putVarint(i - literalStart, out);
+            for (int j = literalStart; j < i; j++) {
+                encoded[out++] = (byte) (current[j] ^ base[j]);
+            }
+        }
+        return out;
+    }
+
+    private void decode(int entry, byte[] base, byte[] dest) {
+        System.arraycopy(base, 0, dest, 0, STATE_SIZE);
+        int in = entryOffset[entry];
+        int end = in + entryLength[entry];
+        int i = 0;
+        while (in < end) {
+            int zeroes = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = arena[in++];
+                zeroes |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            int literals = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = arena[in++];
+                literals |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            i += zeroes;
+            for (int j = 0; j < literals; j++) {
+                dest[i++] ^= arena[in++];
+            }
+        }
+    }
+
+    private int putVarint(int value, int out) {
+        while (value >= 0x80) {
+            encoded[out++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        encoded[out++] = (byte) value;
+        return out;
+    }
+}
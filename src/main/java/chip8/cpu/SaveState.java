@@ -0,0 +1,130 @@
+package chip8.cpu;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A complete snapshot of a {@link CPU} in a fixed-size, versioned binary layout: memory, registers, stack, framebuffer,
+ * timers, random number generator and the keys held down. A state is filled by {@link CPU#saveState(SaveState)} and
+ * applied by {@link CPU#restoreState(SaveState)}; both copy straight between the machine and the state's backing
+ * array, so one instance can be reused for any number of snapshots without allocating.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ *   magic "C8SS" (u32), version (u16), reserved (u16)
+ *   PC (u16), I (u16), stack pointer (u16), reserved (u16), stack (16 x u16), V0-VF (16 x u8)
+ *   timer ticks (u64), delay timer expiry (u64), sound timer expiry (u64), RNG state (u64)
+ *   keys held (u32, bit N for key N), reserved (u32), ROM checksum (u64), modified pages (u64)
+ *   framebuffer (32 x u64), memory (4096 x u8)
+ * </pre>
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class SaveState {
+
+    // -------------------- Default Statics --------------------
+
+    static final int MAGIC = 0x43385353; // "C8SS"
+    static final int VERSION = 1;
+
+    // field offsets
+    static final int PC = 8;
+    static final int INDEX = 10;
+    static final int STACK_POINTER = 12;
+    static final int STACK = 16;
+    static final int REGISTERS = STACK + 16 * 2;
+    static final int TIMER_TICKS = REGISTERS + 16;
+    static final int DELAY_EXPIRY = TIMER_TICKS + 8;
+    static final int SOUND_EXPIRY = DELAY_EXPIRY + 8;
+    static final int RNG_STATE = SOUND_EXPIRY + 8;
+    static final int KEYS = RNG_STATE + 8;
+    static final int ROM_CHECKSUM = KEYS + 8;
+    static final int MODIFIED_PAGES = ROM_CHECKSUM + 8;
+    static final int GRAPHICS = MODIFIED_PAGES + 8;
+    static final int MEMORY = GRAPHICS + 32 * 8;
+
+    // -------------------- Public Statics --------------------
+
+    public static final int SIZE = MEMORY + 4096;
+
+    /**
+     * Reads a state written by {@link #write(Path)}.
+     */
+    public static SaveState read(Path path) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Save state '%s' could not be read.".formatted(path), e);
+        }
+        SaveState state = new SaveState();
+        state.copyFrom(bytes);
+        return state;
+    }
+
+    // -------------------- Private Variables --------------------
+
+    private final byte[] data = new byte[SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(data);
+
+    // -------------------- Constructors --------------------
+
+    public SaveState() {
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, (short) VERSION);
+    }
+
+    // -------------------- Public Methods --------------------
+
+    /**
+     * Replaces this state with the serialized state in {@code bytes}, as returned by {@link #toByteArray()}.
+     *
+     * @throws IllegalArgumentException if {@code bytes} is not a save state of this version
+     */
+    public final void copyFrom(byte[] bytes) {
+        ByteBuffer source = ByteBuffer.wrap(bytes);
+        if (bytes.length != SIZE || source.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a save state.");
+        }
+        if (source.getShort(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported save state version: " + source.getShort(4));
+        }
+        System.arraycopy(bytes, 0, data, 0, SIZE);
+    }
+
+    public final void copyFrom(SaveState state) {
+        System.arraycopy(state.data, 0, data, 0, SIZE);
+    }
+
+    public final byte[] toByteArray() {
+        return data.clone();
+    }
+
+    public final void write(Path path) {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.write(path, data);
+        } catch (IOException e) {
+            throw new RuntimeException("Save state '%s' could not be written.".formatted(path), e);
+        }
+    }
+
+    /**
+     * Checksum of the ROM that was loaded when the state was taken.
+     */
+    public final long getRomChecksum() {
+        return buffer.getLong(ROM_CHECKSUM);
+    }
+
+    // -------------------- Default Methods --------------------
+
+    final ByteBuffer buffer() {
+        return buffer;
+    }
+
+    final byte[] data() {
+        return data;
+    }
+}
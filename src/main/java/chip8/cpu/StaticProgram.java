@@ -0,0 +1,22 @@
+package chip8.cpu;
+
+/**
+ * A ROM recompiled ahead of time into Java by {@link StaticRecompiler}. Used by {@link ExecutionMode#STATIC}.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public interface StaticProgram {
+
+    /**
+     * CRC-32 of the ROM image this program was generated from. The program is only used when the loaded ROM matches.
+     */
+    long romChecksum();
+
+    /**
+     * Executes the block starting at {@code programCounter} if it was recompiled, is unmodified and fits in
+     * {@code budget} instructions.
+     *
+     * @return the number of instructions executed, or 0 if the caller must interpret the next instruction instead
+     */
+    int run(CPU cpu, int programCounter, int budget);
+}
@@ -0,0 +1,239 @@
+package chip8.cpu;
+
+import chip8.util.Utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ahead-of-time recompiler: follows control flow from 0x200 through a ROM and writes a Java {@link StaticProgram}
+ * with one method per reachable basic block. Blocks have the same boundaries as in {@link BlockCache}. Computed
+ * jumps (BNNN) and returns (00EE) are not followed statically; any address that was not reached, or a block whose
+ * pages have been written at runtime, is left to the interpreter.
+ * <pre>
+ *   java -cp build/classes/java/main chip8.cpu.StaticRecompiler pong.ch8 src/aot/java [PongProgram]
+ * </pre>
+ * The generated class is in package {@code chip8.cpu}; compile it onto the classpath and pass an instance to
+ * {@link CPU#setStaticProgram(StaticProgram)}.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class StaticRecompiler {
+
+    // -------------------- Private Statics --------------------
+
+    private static final int PROGRAM_START = 0x200;
+    private static final int MEMORY_SIZE = 4096;
+
+    // -------------------- Main Method --------------------
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: StaticRecompiler <rom.ch8> <output source dir> [class name]");
+            System.exit(2);
+        }
+        File romFile = new File(args[0]);
+        if (!romFile.exists()) {
+            throw new RuntimeException("File '%s' not found!".formatted(romFile.toPath()));
+        }
+        String className = args.length > 2 ? args[2] : classNameFor(romFile.getName());
+        byte[] rom = Utilities.readBytes(romFile);
+        String source = generate(rom, className, romFile.getName());
+
+        Path target = Path.of(args[1], "chip8", "cpu", className + ".java");
+        try {
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Wrote " + target);
+    }
+
+    // -------------------- Public Statics --------------------
+
+    public static String generate(byte[] rom, String className, String romName) {
+        if (rom.length > MEMORY_SIZE - PROGRAM_START) {
+            throw new IllegalArgumentException("ROM of %d bytes does not fit in memory.".formatted(rom.length));
+        }
+        byte[] memory = new byte[MEMORY_SIZE];
+        System.arraycopy(rom, 0, memory, PROGRAM_START, rom.length);
+        int[] decoded = new int[MEMORY_SIZE];
+        for (int address = 0; address < MEMORY_SIZE - 1; address++) {
+            decoded[address] = Decoder.decode(memory[address], memory[address + 1]);
+        }
+
+        Map<Integer, int[]> blocks = discoverBlocks(decoded);
+
+        StringBuilder out = new StringBuilder();
+        out.append("package chip8.cpu;\n\n");
+        out.append("/**\n");
+        out.append(" * Generated by StaticRecompiler from %s (%d blocks). Do not edit.\n".formatted(romName, blocks.size()));
+        out.append(" */\n");
+        out.append("public final class %s implements StaticProgram {\n\n".formatted(className));
+        out.append("    @Override\n");
+        out.append("    public long romChecksum() {\n");
+        out.append("        return 0x%08XL;\n".formatted(CPU.checksum(rom)));
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    public int run(CPU cpu, int programCounter, int budget) {\n");
+        out.append("        return switch (programCounter) {\n");
+        for (Map.Entry<Integer, int[]> block : blocks.entrySet()) {
+            int start = block.getKey();
+            int length = block.getValue().length;
+            out.append("            case 0x%03X -> budget < %d || cpu.isCodeModified(0x%03X, 0x%03X) ? 0 : b%03X(cpu);\n"
+                    .formatted(start, length, start, start + length * 2 - 1, start));
+        }
+        out.append("            default -> 0;\n");
+        out.append("        };\n");
+        out.append("    }\n");
+        for (Map.Entry<Integer, int[]> block : blocks.entrySet()) {
+            int start = block.getKey();
+            int[] instructions = block.getValue();
+            out.append("\n    private static int b%03X(CPU cpu) {\n".formatted(start));
+            for (int i = 0; i < instructions.length; i++) {
+                out.append("        cpu.setProgramCounter(0x%03X);\n".formatted(start + (i + 1) * 2));
+                out.append("        cpu.%s;\n".formatted(handlerCall(instructions[i])));
+            }
+            out.append("        return %d;\n".formatted(instructions.length));
+            out.append("    }\n");
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static Map<Integer, int[]> discoverBlocks(int[] decoded) {
+        Map<Integer, int[]> blocks = new TreeMap<>();
+        Deque<Integer> work = new ArrayDeque<>();
+        work.push(PROGRAM_START);
+        while (!work.isEmpty()) {
+            int start = work.pop();
+            if (start < PROGRAM_START || start >= MEMORY_SIZE - 1 || blocks.containsKey(start)) {
+                continue;
+            }
+            int[] instructions = new int[BlockCache.MAX_BLOCK_LENGTH];
+            int length = 0;
+            int address = start;
+            int last = Decoder.INVALID;
+            while (length < BlockCache.MAX_BLOCK_LENGTH && address < MEMORY_SIZE - 1) {
+                int instruction = decoded[address];
+                int handler = Decoder.handler(instruction);
+                if (handler == Decoder.EMPTY || handler == Decoder.INVALID) {
+                    break;
+                }
+                instructions[length++] = instruction;
+                address += 2;
+                last = instruction;
+                if (BlockCache.endsBlock(handler)) {
+                    break;
+                }
+            }
+            if (length == 0) {
+                continue;
+            }
+            int[] block = new int[length];
+            System.arraycopy(instructions, 0, block, 0, length);
+            blocks.put(start, block);
+
+            // successors of the last instruction; 'address' is the fall-through address
+            switch (Decoder.handler(last)) {
+                case Decoder.OP_1NNN -> work.push(Decoder.nnn(last));
+                case Decoder.OP_2NNN -> {
+                    work.push(address);
+                    work.push(Decoder.nnn(last));
+                }
+                case Decoder.OP_00EE, Decoder.OP_BNNN -> {
+                    // return address and computed target are only known at runtime
+                }
+                case Decoder.OP_3XNN, Decoder.OP_4XNN, Decoder.OP_5XY0, Decoder.OP_9XY0,
+                     Decoder.OP_EX9E, Decoder.OP_EXA1 -> {
+                    work.push(address);
+                    work.push(address + 2);
+                }
+                case Decoder.OP_FX0A -> {
+                    work.push(address - 2);
+                    work.push(address);
+                }
+                default -> work.push(address);
+            }
+        }
+        return blocks;
+    }
+
+    private static String handlerCall(int instruction) {
+        int x = Decoder.x(instruction);
+        int y = Decoder.y(instruction);
+        int n = Decoder.n(instruction);
+        int nn = Decoder.nn(instruction);
+        int nnn = Decoder.nnn(instruction);
+        return switch (Decoder.handler(instruction)) {
+            case Decoder.OP_00E0 -> "do00E0()";
+            case Decoder.OP_00EE -> "do00EE()";
+            case Decoder.OP_0NNN -> "do0NNN()";
+            case Decoder.OP_1NNN -> "do1X(0x%03X)".formatted(nnn);
+            case Decoder.OP_2NNN -> "do2X(0x%03X)".formatted(nnn);
+            case Decoder.OP_3XNN -> "do3X(0x%02X, 0x%X)".formatted(nn, x);
+            case Decoder.OP_4XNN -> "do4X(0x%02X, 0x%X)".formatted(nn, x);
+            case Decoder.OP_5XY0 -> "do5X(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_6XNN -> "do6X(0x%02X, 0x%X)".formatted(nn, x);
+            case Decoder.OP_7XNN -> "do7X(0x%02X, 0x%X)".formatted(nn, x);
+            case Decoder.OP_8XY0 -> "do8XY0(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_8XY1 -> "do8XY1(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_8XY2 -> "do8XY2(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_8XY3 -> "do8XY3(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_8XY4 -> "do8XY4(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_8XY5 -> "do8XY5(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_8XY6 -> "do8XY6(0x%X)".formatted(x);
+            case Decoder.OP_8XY7 -> "do8XY7(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_8XYE -> "do8XYE(0x%X)".formatted(x);
+            case Decoder.OP_9XY0 -> "do9X(0x%X, 0x%X)".formatted(x, y);
+            case Decoder.OP_ANNN -> "doAX(0x%03X)".formatted(nnn);
+            case Decoder.OP_BNNN -> "doBX(0x%03X)".formatted(nnn);
+            case Decoder.OP_CXNN -> "doCX(0x%02X, 0x%X)".formatted(nn, x);
+            case Decoder.OP_DXYN -> "doDX(0x%X, 0x%X, 0x%X)".formatted(n, x, y);
+            case Decoder.OP_EX9E -> "doEX9E(0x%X)".formatted(x);
+            case Decoder.OP_EXA1 -> "doEXA1(0x%X)".formatted(x);
+            case Decoder.OP_FX07 -> "doFX07(0x%X)".formatted(x);
+            case Decoder.OP_FX0A -> "doFX0A(0x%X)".formatted(x);
+            case Decoder.OP_FX15 -> "doFX15(0x%X)".formatted(x);
+            case Decoder.OP_FX18 -> "doFX18(0x%X)".formatted(x);
+            case Decoder.OP_FX1E -> "doFX1E(0x%X)".formatted(x);
+            case Decoder.OP_FX29 -> "doFX29(0x%X)".formatted(x);
+            case Decoder.OP_FX33 -> "doFX33(0x%X)".formatted(x);
+            case Decoder.OP_FX55 -> "doFX55(0x%X)".formatted(x);
+            case Decoder.OP_FX65 -> "doFX65(0x%X)".formatted(x);
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    private static String classNameFor(String romName) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = true;
+        String base = romName.contains(".") ? romName.substring(0, romName.lastIndexOf('.')) : romName;
+        for (char c : base.toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            } else {
+                upper = true;
+            }
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name.insert(0, "Rom");
+        }
+        return name.append("Program").toString();
+    }
+
+    // -------------------- Constructors --------------------
+
+    private StaticRecompiler() {}
+}
@@ -0,0 +1,17 @@
+package chip8.cpu;
+
+/**
+ * Common opcode sequences that the interpreter fuses into a single dispatch. See {@link CPU#getSuperinstructionHits}.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public enum Superinstruction {
+    /** ANNN followed by DXYN. */
+    LOAD_AND_DRAW,
+    /** Two or more consecutive 6XNN register loads. */
+    LOAD_RUN,
+    /** 7XNN followed by 3XNN, the usual loop counter. */
+    ADD_AND_SKIP,
+    /** FX07, 3X00, 1NNN back to the FX07: one iteration of a delay timer poll. */
+    DELAY_POLL
+}
@@ -0,0 +1,111 @@
+package chip8.cpu;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes a trace written by {@link TraceRecorder}, oldest record first, one line per instruction:
+ * <pre>
+ *   cycle  pc  opcode  I  changed register
+ *   java -cp build/classes/java/main chip8.cpu.TraceReader trace.bin [--pc 200-2FF] [--op DXYN]
+ * </pre>
+ * {@code --pc} keeps instructions whose address lies in the inclusive hex range. {@code --op} keeps instructions
+ * matching a four character pattern in the usual CHIP-8 notation: hex digits must match, any other character
+ * ({@code X}, {@code Y}, {@code N}, ...) matches any digit, so {@code FX1E}, {@code 8XY4} and {@code 00E0} all work.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class TraceReader {
+
+    // -------------------- Main Method --------------------
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length % 2 == 0) {
+            System.err.println("Usage: TraceReader <trace> [--pc FROM-TO] [--op PATTERN]");
+            System.exit(2);
+        }
+        int pcFrom = 0;
+        int pcTo = 0xFFFF;
+        int opMask = 0;
+        int opValue = 0;
+        for (int i = 1; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--pc" -> {
+                    String[] range = args[i + 1].split("-", 2);
+                    pcFrom = Integer.parseInt(range[0], 16);
+                    pcTo = range.length > 1 ? Integer.parseInt(range[1], 16) : pcFrom;
+                }
+                case "--op" -> {
+                    String pattern = args[i + 1];
+                    if (pattern.length() != 4) {
+                        throw new IllegalArgumentException("Opcode pattern must be four characters: " + pattern);
+                    }
+                    for (int c = 0; c < 4; c++) {
+                        int digit = Character.digit(pattern.charAt(c), 16);
+                        int shift = 12 - c * 4;
+                        if (digit >= 0) {
+                            opMask |= 0xF << shift;
+                            opValue |= digit << shift;
+                        }
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        print(Path.of(args[0]), pcFrom, pcTo, opMask, opValue, System.out);
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static void print(Path path, int pcFrom, int pcTo, int opMask, int opValue, PrintStream out) {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Trace file '%s' could not be read.".formatted(path), e);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < TraceRecorder.HEADER_BYTES || buffer.getInt(0) != TraceRecorder.MAGIC) {
+            throw new IllegalArgumentException("'%s' is not a trace file.".formatted(path));
+        }
+        int version = buffer.getShort(TraceRecorder.VERSION_OFFSET);
+        int recordBytes = buffer.getShort(TraceRecorder.RECORD_BYTES_OFFSET);
+        if (version != TraceRecorder.VERSION || recordBytes != TraceRecorder.RECORD_BYTES) {
+            throw new IllegalArgumentException("Unsupported trace version %d in '%s'.".formatted(version, path));
+        }
+        int capacity = buffer.getInt(TraceRecorder.CAPACITY_OFFSET);
+        long written = buffer.getLong(TraceRecorder.WRITTEN_OFFSET);
+
+        // once the ring has wrapped, the oldest record is the one the next write would have overwritten
+        int count = (int) Math.min(written, capacity);
+        int first = written > capacity ? (int) (written % capacity) : 0;
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int offset = TraceRecorder.HEADER_BYTES + ((first + i) % capacity) * recordBytes;
+            int pc = buffer.getShort(offset + 8) & 0xFFFF;
+            int opcode = buffer.getShort(offset + 10) & 0xFFFF;
+            if (pc < pcFrom || pc > pcTo || (opcode & opMask) != opValue) {
+                continue;
+            }
+            long cycle = buffer.getLong(offset);
+            int index = buffer.getShort(offset + 12) & 0xFFFF;
+            int register = buffer.get(offset + 14) & 0xFF;
+
+            line.setLength(0);
+            line.append("%12d  %03X  %04X  I=%03X".formatted(cycle, pc, opcode, index));
+            if (register != TraceRecorder.NO_REGISTER) {
+                line.append("  V%X=%02X".formatted(register, buffer.get(offset + 15) & 0xFF));
+            }
+            out.println(line);
+        }
+    }
+
+    // -------------------- Constructors --------------------
+
+    private TraceReader() {}
+}
@@ -0,0 +1,156 @@
+package chip8.cpu;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records every instruction the {@link CPU} executes into a memory-mapped ring file of fixed-width records, keeping
+ * the most recent {@code capacity} of them. Recording does not allocate: each record is written straight into the
+ * mapping, and the header's record count is updated with it, so the file can be read back with {@link TraceReader}
+ * even if the process dies without closing the recorder.
+ * <p>
+ * File layout, little-endian:
+ * <pre>
+ *   header  (32 bytes): magic "C8TR", version (u16), record size (u16), capacity (u32), reserved (u32),
+ *                       records written (u64), reserved (u64)
+ *   record  (16 bytes): cycle (u64), pc (u16), opcode (u16), I (u16), changed register (u8, 0xFF if none),
+ *                       its new value (u8)
+ * </pre>
+ * The cycle is the number of instructions executed since recording started, including those the CPU skipped while
+ * fast-forwarding a polling loop, which are not recorded. All methods must be called from the thread that drives the
+ * CPU.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class TraceRecorder implements Closeable {
+
+    // -------------------- Default Statics --------------------
+
+    static final int MAGIC = 0x52543843; // "C8TR" read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 16;
+    static final int NO_REGISTER = 0xFF;
+
+    // header offsets
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_BYTES_OFFSET = 6;
+    static final int CAPACITY_OFFSET = 8;
+    static final int WRITTEN_OFFSET = 16;
+
+    // -------------------- Private Variables --------------------
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private long cycle;
+    private long written;
+    private int slot;
+
+    // registers as they were before the instruction being recorded
+    private final byte[] before = new byte[16];
+
+    // -------------------- Constructors --------------------
+
+    /**
+     * Creates (or truncates) {@code path} and maps room for {@code capacity} records.
+     */
+    public TraceRecorder(Path path, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Trace capacity must be positive: " + capacity);
+        }
+        long size = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trace capacity too large: " + capacity);
+        }
+        this.capacity = capacity;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Trace file '%s' could not be created.".formatted(path), e);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(VERSION_OFFSET, (short) VERSION);
+        buffer.putShort(RECORD_BYTES_OFFSET, (short) RECORD_BYTES);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(WRITTEN_OFFSET, 0);
+    }
+
+    // -------------------- Public Methods --------------------
+
+    /**
+     * Instructions executed since recording started.
+     */
+    public final long getCycles() {
+        return cycle;
+    }
+
+    /**
+     * Records written since recording started; only the last {@code capacity} of them are kept.
+     */
+    public final long getRecordsWritten() {
+        return written;
+    }
+
+    // -------------------- Overridden Methods --------------------
+
+    @Override
+    public final void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    // -------------------- Default Methods --------------------
+
+    /**
+     * Called just before an instruction executes, with the registers it may change.
+     */
+    final void capture(byte[] registers) {
+        System.arraycopy(registers, 0, before, 0, before.length);
+    }
+
+    /**
+     * Called just after the instruction at {@code pc} executed; records it with the lowest-numbered register it
+     * changed since {@link #capture(byte[])}.
+     */
+    final void record(int pc, int opcode, int indexRegister, byte[] registers) {
+        int changed = NO_REGISTER;
+        for (int i = 0; i < before.length; i++) {
+            if (registers[i] != before[i]) {
+                changed = i;
+                break;
+            }
+        }
+
+        int offset = HEADER_BYTES + slot * RECORD_BYTES;
+        buffer.putLong(offset, cycle);
+        buffer.putShort(offset + 8, (short) pc);
+        buffer.putShort(offset + 10, (short) opcode);
+        buffer.putShort(offset + 12, (short) indexRegister);
+        buffer.put(offset + 14, (byte) changed);
+        buffer.put(offset + 15, changed == NO_REGISTER ? 0 : registers[changed]);
+
+        cycle++;
+        written++;
+        buffer.putLong(WRITTEN_OFFSET, written);
+        if (++slot == capacity) {
+            slot = 0;
+        }
+    }
+
+    /**
+     * Accounts for {@code cycles} instructions the CPU skipped without executing them.
+     */
+    final void skip(long cycles) {
+        cycle += cycles;
+    }
+}
@@ -0,0 +1,75 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import chip8.util.Utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Headless turbo run: executes a ROM with no clock pacing for a fixed wall-clock time and reports sustained MIPS,
+ * frames per second and the time split between instruction execution, timers and frame publication, once a second
+ * and at the end. The delay and sound timers tick once every {@code cycles per frame} instructions, and frames spent
+ * polling the delay timer are fast-forwarded (see {@link CPU#runFrames(int)}). Given a trace file, the last
+ * {@value #TRACE_CAPACITY} instructions are recorded into it for {@link TraceReader}.
+ * <pre>
+ *   java -cp build/classes/java/main chip8.cpu.TurboRunner pong.ch8 [seconds] [cycles per frame] [mode] [trace file]
+ * </pre>
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class TurboRunner {
+
+    // -------------------- Private Statics --------------------
+
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+    private static final int FRAMES_PER_SLICE = 60;
+    private static final int TRACE_CAPACITY = 1 << 20;
+
+    // -------------------- Main Method --------------------
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TurboRunner <rom.ch8> [seconds] [cycles per frame] [INTERPRETER|BLOCK_CACHE|RECOMPILER] [trace file]");
+            System.exit(2);
+        }
+        File romFile = new File(args[0]);
+        if (!romFile.exists()) {
+            throw new RuntimeException("File '%s' not found!".formatted(romFile.toPath()));
+        }
+        long durationNanos = (args.length > 1 ? Long.parseLong(args[1]) : 10) * 1_000_000_000L;
+
+        CPU cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        if (args.length > 2) {
+            cpu.setCyclesPerFrame(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            cpu.setExecutionMode(ExecutionMode.valueOf(args[3]));
+        }
+        cpu.load(Utilities.readBytes(romFile));
+        TraceRecorder tracer = null;
+        if (args.length > 4) {
+            tracer = new TraceRecorder(Path.of(args[4]), TRACE_CAPACITY);
+            cpu.setTraceRecorder(tracer);
+        }
+
+        ExecutionProfile profile = new ExecutionProfile();
+        cpu.setExecutionProfile(profile);
+        long start = System.nanoTime();
+        ExecutionResult result = ExecutionResult.OK;
+        while (result == ExecutionResult.OK && System.nanoTime() - start < durationNanos) {
+            result = cpu.runFrames(FRAMES_PER_SLICE);
+            if (profile.isIntervalElapsed(REPORT_INTERVAL_NANOS)) {
+                System.out.println(profile.intervalReport());
+            }
+        }
+        System.out.printf("%s: %d instructions, %d frames (%s)%n", romFile.getName(), profile.getInstructions(), profile.getFrames(), result);
+        System.out.println("Total: " + profile.report());
+        if (tracer != null) {
+            tracer.close();
+            System.out.printf("Traced %d instructions to %s%n", Math.min(tracer.getRecordsWritten(), TRACE_CAPACITY), args[4]);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package chip8.hardware;
+
+/**
+ * Sink for the CHIP-8 buzzer, driven by the sound timer.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public interface AudioDevice {
+
+    AudioDevice NONE = new AudioDevice() {
+        @Override public void startBeepIfNotStarted() {}
+        @Override public void endBeep() {}
+    };
+
+    void startBeepIfNotStarted();
+    void endBeep();
+}
@@ -2,13 +2,16 @@ package chip8.hardware;
 
 import chip8.Props;
 import chip8.cpu.CPU;
+import chip8.util.Utilities;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferStrategy;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 /**
  *
@@ -16,42 +19,79 @@ import java.util.TimerTask;
  */
 public final class Display extends Canvas {
 
+    // -------------------- Private Static Variables --------------------
+
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
     // -------------------- Private Variables --------------------
 
     private final int width = 64;
     private final int height = 32;
     private final int scaleFactor = 10;
     private final Toolkit toolkit;
+    // X11 (Linux, also under XWayland) queues drawing requests on the client side, so a shown frame can sit there until
+    // something else flushes it; elsewhere show() reaches the screen and a sync would cost a round trip every frame
+    private final boolean syncAfterShow = System.getProperty("os.name", "").toLowerCase().contains("linux");
+
+    // the framebuffer at native resolution; pixels writes straight into its raster
+    private final BufferedImage frameImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    private final int[] pixels = ((DataBufferInt) frameImage.getRaster().getDataBuffer()).getData();
+
+    // written by the CPU thread, read on the EDT
+    private final FrameExchange frames = new FrameExchange(height);
+    private final PresentationScheduler scheduler;
+
+    // set when something other than a new frame (palette, size) needs the screen presented again
+    private volatile boolean presentRequested = true;
 
     private ColorPalette palette = Props.getSavedPalette();
-    private boolean[][] memory = new boolean[height][width];
+    private long[] memory = new long[height];
+
+    // EDT only: rows changed since the last present, bit N for row N
+    private int dirtyRows = -1;
+
+    // EDT only: integer-scaled, centred destination of frameImage in device pixels, cached per device size
+    private final Rectangle viewport = new Rectangle();
+    private int viewportDeviceWidth = -1;
+    private int viewportDeviceHeight = -1;
+    private boolean viewportChanged = true;
 
     // -------------------- Constructors --------------------
 
     public Display(JFrame parent, CPU cpu) {
         this.toolkit = Toolkit.getDefaultToolkit();
-        cpu.addRenderListener(graphicsMemory -> {
-            try {
-                SwingUtilities.invokeAndWait(() -> this.memory = graphicsMemory);
-            } catch (InterruptedException | InvocationTargetException e) {
-                throw new RuntimeException("Failed to render.", e);
+        cpu.addRenderListener(new RenderListener() {
+            @Override
+            public void render(boolean[][] graphicsMemory) {
+                render(Utilities.packFrame(graphicsMemory));
+            }
+
+            @Override
+            public void render(long[] packedFrame) {
+                render(packedFrame, -1);
+            }
+
+            @Override
+            public void render(long[] packedFrame, int changedRows) {
+                frames.publish(packedFrame, changedRows);
             }
         });
         setPreferredSize(new Dimension(width * scaleFactor, height * scaleFactor));
-        setMinimumSize(new Dimension(width * scaleFactor, height * scaleFactor));
+        setMinimumSize(new Dimension(width, height));
         setIgnoreRepaint(true);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                viewportChanged = true;
+                presentRequested = true;
+            }
+        });
 
+        this.scheduler = new PresentationScheduler(getRefreshRate(), () -> presentRequested || frames.hasFresh(), this::render);
         parent.addHierarchyListener(e -> {
-            if (parent.isVisible()) {
+            if (parent.isVisible() && getBufferStrategy() == null) {
                 createBufferStrategy(2);
-                Timer timer = new Timer("render-timer", false);
-                timer.scheduleAtFixedRate(new TimerTask() {
-                    @Override
-                    public void run() {
-                        SwingUtilities.invokeLater(() -> render());
-
-                    }
-                }, 0, 16);
+                scheduler.start();
             }
         });
     }
@@ -59,39 +99,125 @@ public final class Display extends Canvas {
     // -------------------- Default Methods --------------------
 
     public final void setColorPalette(ColorPalette palette) {
-        SwingUtilities.invokeLater(() -> this.palette = palette);
+        SwingUtilities.invokeLater(() -> {
+            this.palette = palette;
+            this.dirtyRows = -1;
+            this.presentRequested = true;
+        });
+    }
+
+    /** Frames presented to the screen so far. */
+    public final long getPresentedFrames() {
+        return scheduler.getPresents();
+    }
+
+    /** Refresh ticks where a new frame could not be presented in time. */
+    public final long getMissedPresents() {
+        return scheduler.getMissedPresents();
+    }
+
+    /** Presents that ran more than half a refresh period after they were scheduled. */
+    public final long getLatePresents() {
+        return scheduler.getLatePresents();
+    }
+
+    /**
+     * One-line summary of the presentation counters, for the turbo report.
+     */
+    public final String presentationReport() {
+        return "%d frames presented, %d missed, %d late"
+                .formatted(getPresentedFrames(), getMissedPresents(), getLatePresents());
+    }
+
+    // -------------------- Overridden Methods --------------------
+
+    @Override
+    public void removeNotify() {
+        scheduler.stop();
+        super.removeNotify();
     }
 
     // -------------------- Private Methods --------------------
 
     private void render() {
+        presentRequested = false;
         BufferStrategy strategy = getBufferStrategy();
-        Graphics graphics = strategy.getDrawGraphics();
-        Graphics2D g2d = (Graphics2D) graphics;
-        try {
-            Rectangle pixel = new Rectangle(0, 0, getWidth() / width, getHeight() / height);
-            for (boolean[] row : memory) {
-                for (boolean pixelState : row) {
-                    Color color = pixelState ? palette.onPixel() : palette.offPixel();
-                    Color _color = g2d.getColor();
-                    try {
-                        g2d.setColor(color);
-                        g2d.fill(pixel);
-                        g2d.draw(pixel);
-                        int newXPosition = pixel.x + scaleFactor;
-                        pixel.setLocation(newXPosition, pixel.y);
-                    } finally {
-                        g2d.setColor(_color);
-                    }
-                }
-                int newYPosition = pixel.y + scaleFactor;
-                pixel.setLocation(0, newYPosition);
-            }
+        if (strategy == null || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        if (frames.acquire()) {
+            memory = frames.front();
+            dirtyRows |= frames.frontDirtyRows();
+        }
+        // nothing changed since the last present and the back buffer survived: leave the screen alone
+        if (dirtyRows == 0 && !viewportChanged && !strategy.contentsLost()) {
+            return;
+        }
+
+        paintRows(pixels, memory, dirtyRows, palette.onPixel().getRGB(), palette.offPixel().getRGB());
+        dirtyRows = 0;
+        viewportChanged = false;
 
+        do {
+            Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+            try {
+                present(g2d);
+            } finally {
+                g2d.dispose();
+            }
             strategy.show();
+        } while (strategy.contentsLost());
+        if (syncAfterShow) {
             toolkit.sync();
-        } finally {
-            g2d.dispose();
+        }
+    }
+
+    private void present(Graphics2D g2d) {
+        // draw in device pixels so HiDPI screens get a whole number of device pixels per CHIP-8 pixel
+        AffineTransform deviceTransform = g2d.getTransform();
+        int deviceWidth = (int) Math.floor(getWidth() * deviceTransform.getScaleX());
+        int deviceHeight = (int) Math.floor(getHeight() * deviceTransform.getScaleY());
+        if (deviceWidth != viewportDeviceWidth || deviceHeight != viewportDeviceHeight) {
+            int scale = Math.max(1, Math.min(deviceWidth / width, deviceHeight / height));
+            viewport.setBounds((deviceWidth - width * scale) / 2, (deviceHeight - height * scale) / 2, width * scale, height * scale);
+            viewportDeviceWidth = deviceWidth;
+            viewportDeviceHeight = deviceHeight;
+        }
+
+        g2d.setTransform(new AffineTransform(1, 0, 0, 1, deviceTransform.getTranslateX(), deviceTransform.getTranslateY()));
+        g2d.setColor(palette.offPixel());
+        g2d.fillRect(0, 0, deviceWidth, deviceHeight);
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2d.drawImage(frameImage, viewport.x, viewport.y, viewport.width, viewport.height, null);
+    }
+
+    private static int getRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return DEFAULT_REFRESH_RATE;
+        }
+        int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice()
+                .getDisplayMode()
+                .getRefreshRate();
+        return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : refreshRate;
+    }
+
+    // -------------------- Default Static Methods --------------------
+
+    /**
+     * Writes the rows of {@code memory} selected by {@code rows} (bit N for row N) into a 64x32 ARGB pixel array; the
+     * other rows are left untouched.
+     */
+    static void paintRows(int[] pixels, long[] memory, int rows, int onColor, int offColor) {
+        for (int y = 0; y < memory.length; y++) {
+            if ((rows & (1 << y)) == 0) {
+                continue;
+            }
+            long row = memory[y];
+            int offset = y << 6;
+            for (int x = 0; x < 64; x++) {
+                pixels[offset + x] = (row << x) < 0 ? onColor : offColor;
+            }
         }
     }
 
@@ -0,0 +1,90 @@
+package chip8.hardware;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer handing packed frames from the CPU thread to the renderer. The producer writes into its back
+ * slot and swaps it with the middle slot; the consumer swaps its front slot with the middle slot when a fresh frame is
+ * there. Neither side ever waits, the consumer always gets the latest frame, and frames it never saw have their dirty
+ * rows folded into the next one so partial redraws stay correct.
+ * <p>
+ * One producer thread and one consumer thread.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class FrameExchange {
+
+    // -------------------- Private Static Variables --------------------
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;
+
+    // -------------------- Private Variables --------------------
+
+    private final long[][] frames;
+    private final int[] dirtyRows = new int[3];
+
+    // slot index of the middle buffer, plus FRESH while it holds a frame the consumer has not taken
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    // producer only
+    private int back = 0;
+    private int unseenRows = -1;
+
+    // consumer only
+    private int front = 2;
+
+    // -------------------- Constructors --------------------
+
+    FrameExchange(int rows) {
+        this.frames = new long[3][rows];
+    }
+
+    // -------------------- Default Methods --------------------
+
+    /**
+     * Producer side: copies {@code frame} into the back slot and makes it the latest frame. Never blocks.
+     */
+    final void publish(long[] frame, int changedRows) {
+        unseenRows |= changedRows;
+        System.arraycopy(frame, 0, frames[back], 0, frames[back].length);
+        dirtyRows[back] = unseenRows;
+        int previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX_MASK;
+        if ((previous & FRESH) == 0) {
+            // the consumer took everything published before this frame
+            unseenRows = changedRows;
+        }
+    }
+
+    /**
+     * Consumer side: takes the latest published frame if there is one the consumer has not seen yet.
+     *
+     * @return true if {@link #front()} and {@link #frontDirtyRows()} now describe a new frame
+     */
+    final boolean acquire() {
+        if (!hasFresh()) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Whether a frame the consumer has not taken yet is waiting. Safe to call from any thread.
+     */
+    final boolean hasFresh() {
+        return (middle.get() & FRESH) != 0;
+    }
+
+    /**
+     * The frame last taken by {@link #acquire()}. Stays untouched by the producer until the next {@code acquire}.
+     */
+    final long[] front() {
+        return frames[front];
+    }
+
+    final int frontDirtyRows() {
+        return dirtyRows[front];
+    }
+}
@@ -0,0 +1,138 @@
+package chip8.hardware;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a unit of work once per frame on its own thread, paced on {@link System#nanoTime()}. Deadlines are computed
+ * from the start of the run ({@code origin + n * period}) rather than by adding a rounded period to the last wake-up,
+ * so sleep overshoot never accumulates into drift. When a frame runs late the following frames run back to back to
+ * catch up, but never more than {@link #MAX_CATCH_UP_FRAMES} frames' worth: past that (a debugger pause, a long GC,
+ * a host that is simply too slow) the backlog is dropped and pacing restarts from now.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class FrameScheduler {
+
+    // -------------------- Private Static Variables --------------------
+
+    private static final int MAX_CATCH_UP_FRAMES = 4;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // -------------------- Private Variables ---------------
+
+    private final String name;
+    private final BooleanSupplier work;
+    private volatile Thread thread;
+    private volatile boolean unthrottled;
+    private volatile boolean woken;
+
+    // -------------------- Constructors --------------------
+
+    /**
+     * @param work called once per frame; returning false stops the scheduler
+     */
+    public FrameScheduler(String name, BooleanSupplier work) {
+        this.name = name;
+        this.work = work;
+    }
+
+    // -------------------- Public Methods --------------------
+
+    public final boolean isRunning() {
+        return thread != null;
+    }
+
+    public final synchronized void stopGracefully() {
+        Thread current = thread;
+        thread = null;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /**
+     * Starts the scheduler thread, or does nothing if it is already running.
+     */
+    public final synchronized void start(int framesPerSecond) {
+        if (framesPerSecond < 1) {
+            throw new IllegalArgumentException("Frame rate must be positive: " + framesPerSecond);
+        }
+        if (thread != null) {
+            return;
+        }
+        Thread newThread = new Thread(() -> run(framesPerSecond), name);
+        newThread.setDaemon(true);
+        thread = newThread;
+        newThread.start();
+    }
+
+    /**
+     * When set, frames run back to back as fast as the work allows, with no pacing at all. Takes effect after the
+     * current frame; pacing restarts from scratch when it is cleared.
+     */
+    public final void setUnthrottled(boolean unthrottled) {
+        this.unthrottled = unthrottled;
+    }
+
+    /**
+     * Called from the work to put the scheduler thread to sleep until {@link #wake()} is called, the scheduler is
+     * stopped or {@code timeoutNanos} pass. Pacing restarts from scratch afterwards.
+     */
+    public final void idle(long timeoutNanos) {
+        Thread self = Thread.currentThread();
+        long deadline = System.nanoTime() + timeoutNanos;
+        long left = timeoutNanos;
+        while (!woken && thread == self && left > 0) {
+            LockSupport.parkNanos(this, left);
+            left = deadline - System.nanoTime();
+        }
+        woken = false;
+    }
+
+    /**
+     * Ends an {@link #idle(long)} in progress, or makes the next one return at once.
+     */
+    public final void wake() {
+        woken = true;
+        Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    // -------------------- Private Methods --------------------
+
+    private void run(int framesPerSecond) {
+        Thread self = Thread.currentThread();
+        long origin = System.nanoTime();
+        long frame = 0;
+        while (thread == self) {
+            if (!work.getAsBoolean()) {
+                synchronized (this) {
+                    if (thread == self) {
+                        thread = null;
+                    }
+                }
+                return;
+            }
+            if (unthrottled) {
+                // leaves the deadline far behind, so pacing resynchronises once unthrottled is cleared
+                continue;
+            }
+
+            frame++;
+            long deadline = origin + frame * NANOS_PER_SECOND / framesPerSecond;
+            long now = System.nanoTime();
+            if (now - deadline > MAX_CATCH_UP_FRAMES * NANOS_PER_SECOND / framesPerSecond) {
+                origin = now;
+                frame = 0;
+                continue;
+            }
+            while (thread == self && now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                now = System.nanoTime();
+            }
+        }
+    }
+}
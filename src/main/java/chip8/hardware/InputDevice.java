@@ -0,0 +1,36 @@
+package chip8.hardware;
+
+/**
+ * Source of the 16-key hex keypad state. Implementations must be safe to poll from the emulation thread.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public interface InputDevice {
+    boolean isPressed(byte key);
+    byte firstKeyPressed();
+
+    /**
+     * Registers a callback to run, on any thread, whenever a key goes down or up. The CPU uses it to wake up from an
+     * idle wait for input; devices that cannot report changes may ignore it and are then polled a few times a second.
+     */
+    default void setChangeListener(Runnable listener) {}
+
+    /**
+     * The keys held down, bit N for key N.
+     */
+    default int getPressedMask() {
+        int mask = 0;
+        for (byte key = 0; key < 16; key++) {
+            if (isPressed(key)) {
+                mask |= 1 << key;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Replaces the keys held down, as when a save state is restored. Devices backed by real keys ignore it, since the
+     * keys the player is holding win.
+     */
+    default void setPressedMask(int mask) {}
+}
@@ -6,7 +6,7 @@ import java.awt.*;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.locks.Condition;
+import java.util.Objects;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static java.awt.event.KeyEvent.*;
@@ -14,7 +14,7 @@ import static java.awt.event.KeyEvent.*;
  *
  * @author Scott Faria <scott.faria@protonmailcom>
  */
-public final class Keyboard {
+public final class Keyboard implements InputDevice {
 
     // -------------------- Private Statics --------------------
 
@@ -41,7 +41,7 @@ public final class Keyboard {
 
     private final boolean[] keyState = new boolean[16];
     private final ReentrantLock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
+    private volatile Runnable changeListener = () -> {};
 
     // -------------------- Constructors --------------------
 
@@ -75,25 +75,29 @@ public final class Keyboard {
     }
 
 
-    // -------------------- Default Methods --------------------
+    // -------------------- Overridden Methods --------------------
 
-    public final byte waitForKeyPress() {
+    @Override
+    public final void setChangeListener(Runnable listener) {
+        this.changeListener = Objects.requireNonNull(listener);
+    }
+
+    @Override
+    public final byte firstKeyPressed() {
         lock.lock();
         try {
-            byte keyPressed = firstKeyPressed();
-            while (keyPressed == -1) {
-                try {
-                    condition.await();
-                } catch (InterruptedException ignore) {}
-
-                keyPressed = firstKeyPressed();
+            for (byte i = 0; i < keyState.length; i++) {
+                if (keyState[i]) {
+                    return i;
+                }
             }
-            return keyPressed;
+            return -1;
         } finally {
             lock.unlock();
         }
     }
 
+    @Override
     public final boolean isPressed(byte key) {
         if (key < 0 || key >= keyState.length) {
             return false;
@@ -113,31 +117,20 @@ public final class Keyboard {
         lock.lock();
         try {
             keyState[keyIndex] = true;
-            condition.signalAll();
         } finally {
             lock.unlock();
         }
+        changeListener.run();
     }
 
     private void releaseKey(byte keyIndex) {
         lock.lock();
         try {
             keyState[keyIndex] = false;
-            condition.signalAll();
         } finally {
             lock.unlock();
         }
-    }
-
-    private byte firstKeyPressed() {
-        assert lock.isLocked();
-        for (byte i = 0; i < keyState.length; i++) {
-            boolean pressed = keyState[i];
-            if (pressed) {
-               return i;
-            }
-        }
-        return -1;
+        changeListener.run();
     }
 
 }
@@ -15,7 +15,7 @@ import java.util.concurrent.atomic.AtomicReference;
 /**
  * @author Scott Faria <scott.faria@protonmail.com>
  */
-public final class PCSpeaker implements AutoCloseable {
+public final class PCSpeaker implements AudioDevice, AutoCloseable {
 
     // -------------------- Private Statics --------------------
 
@@ -53,6 +53,7 @@ public final class PCSpeaker implements AutoCloseable {
         this.volume.set(volume);
     }
 
+    @Override
     public final void startBeepIfNotStarted() {
         if (beeping.compareAndSet(false, true)) {
             Utilities.invokeInBackground(() -> {
@@ -73,6 +74,7 @@ public final class PCSpeaker implements AutoCloseable {
         }
     }
 
+    @Override
     public final void endBeep() {
         if (beeping.compareAndSet(true, false)) {
             line.stop();
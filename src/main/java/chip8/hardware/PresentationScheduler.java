@@ -0,0 +1,124 @@
+package chip8.hardware;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Paces presentation of the display on {@link System#nanoTime()} at the screen's refresh rate. On each tick it asks
+ * whether there is anything new to show and, if so, posts exactly one present to the EDT; while a present is still
+ * queued further ticks are coalesced into it rather than piling up. Ticks that could not be presented, either because
+ * the previous present was still queued or because the thread woke up a whole period late, are counted as missed;
+ * presents that ran on the EDT more than half a period after their tick are counted as late.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class PresentationScheduler {
+
+    // -------------------- Private Variables --------------------
+
+    private final long periodNanos;
+    private final BooleanSupplier hasNewFrame;
+    private final Runnable present;
+    private final AtomicBoolean presentQueued = new AtomicBoolean();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // statistics
+    private volatile long presents;
+    private volatile long missedPresents;
+    private volatile long latePresents;
+
+    // -------------------- Constructors --------------------
+
+    PresentationScheduler(int refreshRate, BooleanSupplier hasNewFrame, Runnable present) {
+        if (refreshRate < 1) {
+            throw new IllegalArgumentException("Refresh rate must be positive: " + refreshRate);
+        }
+        this.periodNanos = 1_000_000_000L / refreshRate;
+        this.hasNewFrame = hasNewFrame;
+        this.present = present;
+    }
+
+    // -------------------- Default Methods --------------------
+
+    final synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "display-presenter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    final synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread = null;
+        }
+    }
+
+    final long getPresents() {
+        return presents;
+    }
+
+    final long getMissedPresents() {
+        return missedPresents;
+    }
+
+    final long getLatePresents() {
+        return latePresents;
+    }
+
+    // -------------------- Private Methods --------------------
+
+    private void run() {
+        long deadline = System.nanoTime();
+        while (running) {
+            deadline += periodNanos;
+            long now = sleepUntil(deadline);
+
+            // woke up more than a period late: drop the ticks we slept through instead of bursting to catch up
+            long behind = now - deadline;
+            if (behind >= periodNanos) {
+                long skipped = behind / periodNanos;
+                missedPresents += skipped;
+                deadline += skipped * periodNanos;
+            }
+
+            if (!hasNewFrame.getAsBoolean()) {
+                continue;
+            }
+            if (!presentQueued.compareAndSet(false, true)) {
+                // the EDT has not run the previous present yet; it will pick up this frame too
+                missedPresents++;
+                continue;
+            }
+            long scheduled = deadline;
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    if (System.nanoTime() - scheduled > periodNanos / 2) {
+                        latePresents++;
+                    }
+                    present.run();
+                    presents++;
+                } finally {
+                    presentQueued.set(false);
+                }
+            });
+        }
+    }
+
+    private long sleepUntil(long deadline) {
+        long now = System.nanoTime();
+        while (running && now < deadline) {
+            LockSupport.parkNanos(deadline - now);
+            now = System.nanoTime();
+        }
+        return now;
+    }
+}
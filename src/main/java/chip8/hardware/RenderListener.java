@@ -1,5 +1,7 @@
 package chip8.hardware;
 
+import chip8.util.Utilities;
+
 import java.util.EventListener;
 
 /**
@@ -7,4 +9,22 @@ import java.util.EventListener;
  */
 public interface RenderListener extends EventListener {
     void render(boolean[][] graphicsMemory);
+
+    /**
+     * Receives the frame as 32 packed rows, pixel 0 in the most significant bit. The CPU calls this variant; the
+     * default expands it for listeners that only implement {@link #render(boolean[][])}.
+     */
+    default void render(long[] packedFrame) {
+        boolean[][] graphicsMemory = new boolean[32][64];
+        Utilities.unpackFrame(packedFrame, graphicsMemory);
+        render(graphicsMemory);
+    }
+
+    /**
+     * Receives the frame together with the rows that changed since the previous one, bit N for row N. The CPU calls
+     * this variant once per frame, and only if something changed; the default ignores the mask.
+     */
+    default void render(long[] packedFrame, int dirtyRows) {
+        render(packedFrame);
+    }
 }
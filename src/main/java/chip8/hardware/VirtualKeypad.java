@@ -0,0 +1,65 @@
+package chip8.hardware;
+
+import java.util.Objects;
+
+/**
+ * An {@link InputDevice} with no AWT dependency, for headless runs where keys are pressed programmatically.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+public final class VirtualKeypad implements InputDevice {
+
+    // -------------------- Private Variables --------------------
+
+    private volatile int pressedMask;
+    private volatile Runnable changeListener = () -> {};
+
+    // -------------------- Public Methods --------------------
+
+    public final void press(int key) {
+        pressedMask |= (1 << (key & 0xF));
+        changeListener.run();
+    }
+
+    public final void release(int key) {
+        pressedMask &= ~(1 << (key & 0xF));
+        changeListener.run();
+    }
+
+    public final void releaseAll() {
+        pressedMask = 0;
+        changeListener.run();
+    }
+
+    // -------------------- Overridden Methods --------------------
+
+    @Override
+    public final int getPressedMask() {
+        return pressedMask;
+    }
+
+    @Override
+    public final void setPressedMask(int mask) {
+        pressedMask = mask & 0xFFFF;
+        changeListener.run();
+    }
+
+    @Override
+    public final void setChangeListener(Runnable listener) {
+        this.changeListener = Objects.requireNonNull(listener);
+    }
+
+    @Override
+    public final boolean isPressed(byte key) {
+        if (key < 0 || key >= 16) {
+            return false;
+        }
+        return (pressedMask & (1 << key)) != 0;
+    }
+
+    @Override
+    public final byte firstKeyPressed() {
+        int mask = pressedMask;
+        return mask == 0 ? -1 : (byte) Integer.numberOfTrailingZeros(mask);
+    }
+}
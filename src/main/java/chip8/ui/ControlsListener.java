@@ -16,4 +16,8 @@ public interface ControlsListener extends EventListener {
     default void romSelected(File romFile) {}
     default void colorPaletteChanged(ColorPalette selectedPalette) {}
     default void cpuSpeedChanged(int cpuTickHz) {}
+    default void turboChanged(boolean turbo) {}
+    default void saveStateRequested(int slot) {}
+    default void loadStateRequested(int slot) {}
+    default void rewindChanged(boolean rewinding) {}
 }
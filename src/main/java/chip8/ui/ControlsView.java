@@ -10,22 +10,32 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.EventListenerList;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ItemEvent;
 import java.io.File;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Scott Faria <scott.faria@protonmail.com>
  */
 public final class ControlsView extends JComponent {
 
+    // -------------------- Private Statics --------------------
+
+    private static final int SAVE_STATE_SLOTS = 4;
+
     // -------------------- Private Variables --------------------
 
     private final EventListenerList ll = new EventListenerList();
 
+    // latest machine state not yet shown; at most one update is queued on the EDT at a time
+    private final AtomicReference<MachineState> pendingState = new AtomicReference<>();
+
     // -------------------- Constructors --------------------
 
     public ControlsView(CPU cpu) {
@@ -144,29 +154,74 @@ public final class ControlsView extends JComponent {
         stopButton.setEnabled(false);
         stopButton.addActionListener(e -> fireStop());
 
+        SpinnerNumberModel slotModel = new SpinnerNumberModel(1, 1, SAVE_STATE_SLOTS, 1);
+        JSpinner slotSpinner = new JSpinner(slotModel);
+        JButton saveStateButton = new JButton("Save State");
+        saveStateButton.setEnabled(false);
+        saveStateButton.addActionListener(e -> fireSaveState((int) slotModel.getNumber()));
+        JButton loadStateButton = new JButton("Load State");
+        loadStateButton.setEnabled(false);
+        loadStateButton.addActionListener(e -> fireLoadState((int) slotModel.getNumber()));
+
+        // rewinds for as long as the button is held down
+        JButton rewindButton = new JButton("Rewind");
+        rewindButton.setEnabled(false);
+        rewindButton.getModel().addChangeListener(new ChangeListener() {
+            private boolean rewinding;
+
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                boolean pressed = rewindButton.getModel().isPressed();
+                if (pressed != rewinding) {
+                    rewinding = pressed;
+                    fireRewindChanged(pressed);
+                }
+            }
+        });
+
         cpu.addDebuggerListener(new DebuggerListener() {
             @Override public void machineStarted() {
                 stopButton.setEnabled(true);
                 playButton.setEnabled(true);
-
+                saveStateButton.setEnabled(true);
+                loadStateButton.setEnabled(true);
+                rewindButton.setEnabled(true);
             }
             @Override public void machineStopped() {
                 stopButton.setEnabled(false);
                 playButton.setEnabled(false);
+                saveStateButton.setEnabled(false);
+                loadStateButton.setEnabled(false);
+                rewindButton.setEnabled(false);
             }
         });
 
         JCheckBox waitBox = new JCheckBox("Enable Breakpoint", false);
         waitBox.addItemListener(e -> fireWaitChanged(e.getStateChange() == ItemEvent.SELECTED));
 
+        JCheckBox turboBox = new JCheckBox("Turbo", false);
+        turboBox.addItemListener(e -> fireTurboChanged(e.getStateChange() == ItemEvent.SELECTED));
+
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 4));
         buttonPanel.add(stopButton);
         buttonPanel.add(playButton);
         buttonPanel.add(waitBox);
+        buttonPanel.add(turboBox);
+
+        JPanel statePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 4));
+        statePanel.add(new JLabel("Slot:"));
+        statePanel.add(slotSpinner);
+        statePanel.add(saveStateButton);
+        statePanel.add(loadStateButton);
+        statePanel.add(rewindButton);
+
+        JPanel topPanel = new JPanel(new GridLayout(2, 1, 0, 0));
+        topPanel.add(buttonPanel);
+        topPanel.add(statePanel);
 
         JPanel controlPanel = new JPanel(new BorderLayout());
         controlPanel.setBorder(new TitledBorder(new LineBorder(Color.GRAY, 2, true), "Operations"));
-        controlPanel.add(buttonPanel, BorderLayout.NORTH);
+        controlPanel.add(topPanel, BorderLayout.NORTH);
 
         JPanel operationPanel = new JPanel(new GridLayout(6, 1, 0, 4));
         operationPanel.setBorder(new EmptyBorder(12, 8, 8, 8));
@@ -215,6 +270,30 @@ public final class ControlsView extends JComponent {
         }
     }
 
+    private void fireTurboChanged(boolean turbo) {
+        for (ControlsListener l : ll.getListeners(ControlsListener.class)) {
+            l.turboChanged(turbo);
+        }
+    }
+
+    private void fireSaveState(int slot) {
+        for (ControlsListener l : ll.getListeners(ControlsListener.class)) {
+            l.saveStateRequested(slot);
+        }
+    }
+
+    private void fireLoadState(int slot) {
+        for (ControlsListener l : ll.getListeners(ControlsListener.class)) {
+            l.loadStateRequested(slot);
+        }
+    }
+
+    private void fireRewindChanged(boolean rewinding) {
+        for (ControlsListener l : ll.getListeners(ControlsListener.class)) {
+            l.rewindChanged(rewinding);
+        }
+    }
+
     private void fireStop() {
         for (ControlsListener l : ll.getListeners(ControlsListener.class)) {
             l.stopEmulator();
@@ -228,7 +307,9 @@ public final class ControlsView extends JComponent {
     }
 
     private void fireMachineStateChanged(MachineState currentState) {
-        SwingUtilities.invokeLater(() -> firePropertyChange("machineStateChanged", null, currentState));
+        if (pendingState.getAndSet(currentState) == null) {
+            SwingUtilities.invokeLater(() -> firePropertyChange("machineStateChanged", null, pendingState.getAndSet(null)));
+        }
     }
 
     private void fireFileOpened(File file) {
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
 
 /**
  * @author Scott Faria <scott.faria@protonmail.com>
@@ -35,6 +36,50 @@ public final class Utilities {
         }
     }
 
+    /**
+     * Expands a packed frame (one word per row, pixel 0 in the most significant bit) into {@code dest}.
+     */
+    public static void unpackFrame(long[] packedFrame, boolean[][] dest) {
+        for (int y = 0; y < packedFrame.length; y++) {
+            long row = packedFrame[y];
+            boolean[] destRow = dest[y];
+            for (int x = 0; x < destRow.length; x++) {
+                destRow[x] = (row & (1L << (63 - x))) != 0;
+            }
+        }
+    }
+
+    /**
+     * Packs a frame of 32 rows of 64 pixels into one word per row, pixel 0 in the most significant bit.
+     */
+    public static long[] packFrame(boolean[][] frame) {
+        long[] packedFrame = new long[frame.length];
+        for (int y = 0; y < frame.length; y++) {
+            long row = 0;
+            for (int x = 0; x < frame[y].length; x++) {
+                if (frame[y][x]) {
+                    row |= 1L << (63 - x);
+                }
+            }
+            packedFrame[y] = row;
+        }
+        return packedFrame;
+    }
+
+    /**
+     * CRC-32 of a packed frame, rows in order with each row's bytes most significant first, for comparing frames
+     * across runs.
+     */
+    public static long hashFrame(long[] packedFrame) {
+        CRC32 crc = new CRC32();
+        for (long row : packedFrame) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                crc.update((int) (row >>> shift));
+            }
+        }
+        return crc.getValue();
+    }
+
     public static void invokeInBackground(Runnable r) {
         BG_EX.execute(r);
     }
@@ -0,0 +1,263 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import chip8.util.Utilities;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs every ROM in {@code src/test/resources/golden} for a fixed number of frames in each execution mode, and in the
+ * interpreter without superinstructions, hashing the framebuffer every {@value #CHECKPOINT_INTERVAL} frames, and
+ * compares the hashes against {@code golden/frames.txt}. The recompiler compiles every block the first time it runs,
+ * and {@link ExecutionMode#STATIC} runs a program generated by {@link StaticRecompiler} and compiled for the ROM on the
+ * fly. The ROMs are assembled by {@link GoldenRoms}, and each binary must match its listing there.
+ * ROMs run on their own with a fixed random seed; a ROM is also run once per input script named
+ * {@code <rom>.<script>.input} (see {@link InputLog}) next to it, for as many frames as the script lasts. A failure
+ * reports the first checkpoint that diverged, so a change that breaks an instruction points at the frame it broke.
+ * <p>
+ * After a change that is meant to alter the output, rewrite the goldens with {@code gradle test
+ * -Pgolden.update=true}; the ROMs are reassembled first, and the interpreter's hashes are written once every mode
+ * agrees on them.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+class GoldenFrameTest {
+
+    // -------------------- Private Statics --------------------
+
+    private static final Path GOLDEN_DIR = Path.of("src/test/resources/golden");
+    private static final Path GOLDEN_FILE = GOLDEN_DIR.resolve("frames.txt");
+
+    private static final int CYCLES_PER_FRAME = 8;
+    private static final int FRAMES = 300;
+    private static final int CHECKPOINT_INTERVAL = 30;
+    private static final long SEED = 0;
+
+    private static final boolean UPDATE = Boolean.getBoolean("golden.update");
+
+    // case name -> hashes at each checkpoint
+    private static final Map<String, long[]> goldens = new TreeMap<>();
+
+    // case name -> mode, plus UNFUSED for the interpreter without superinstructions -> hashes, while updating
+    private static final Map<String, Map<String, long[]>> recorded = new ConcurrentHashMap<>();
+
+    // ROM name -> its ahead-of-time recompiled program; a class can only be defined once
+    private static final Map<String, StaticProgram> staticPrograms = new ConcurrentHashMap<>();
+
+    // -------------------- Default Statics --------------------
+
+    @BeforeAll
+    static void loadGoldens() throws IOException {
+        if (UPDATE) {
+            for (Map.Entry<String, byte[]> rom : GoldenRoms.all().entrySet()) {
+                Files.write(GOLDEN_DIR.resolve(rom.getKey() + ".ch8"), rom.getValue());
+            }
+            return;
+        }
+        if (!Files.exists(GOLDEN_FILE)) {
+            return;
+        }
+        Map<String, List<Long>> hashes = new TreeMap<>();
+        for (String line : Files.readAllLines(GOLDEN_FILE)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.trim().split("\\s+");
+            hashes.computeIfAbsent(fields[0], name -> new ArrayList<>()).add(Long.parseLong(fields[2], 16));
+        }
+        hashes.forEach((name, list) -> goldens.put(name, list.stream().mapToLong(Long::longValue).toArray()));
+    }
+
+    @AfterAll
+    static void writeGoldens() throws IOException {
+        if (!UPDATE) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("# case, frame, CRC-32 of the framebuffer; rewrite with gradle test -Pgolden.update=true");
+        for (Map.Entry<String, Map<String, long[]>> entry : new TreeMap<>(recorded).entrySet()) {
+            long[] hashes = entry.getValue().get(ExecutionMode.INTERPRETER.name());
+            entry.getValue().forEach((variant, variantHashes) -> {
+                if (!Arrays.equals(hashes, variantHashes)) {
+                    fail("%s: %s disagrees with the interpreter, goldens not written".formatted(entry.getKey(), variant));
+                }
+            });
+            for (int i = 0; i < hashes.length; i++) {
+                lines.add("%s %d %08x".formatted(entry.getKey(), (i + 1) * CHECKPOINT_INTERVAL, hashes[i]));
+            }
+        }
+        Files.write(GOLDEN_FILE, lines);
+    }
+
+    static Stream<Arguments> cases() throws IOException {
+        List<String> names;
+        try (Stream<Path> files = Files.list(GOLDEN_DIR)) {
+            names = files.map(file -> file.getFileName().toString())
+                    .filter(file -> file.endsWith(".ch8") || file.endsWith(".input"))
+                    .map(file -> file.substring(0, file.lastIndexOf('.')))
+                    .sorted()
+                    .toList();
+        }
+        // the interpreter runs twice, with and without fusing superinstructions; the other modes never fuse
+        return names.stream().flatMap(name -> Stream.concat(
+                Stream.of(ExecutionMode.values()).map(mode -> Arguments.of(name, mode, true)),
+                Stream.of(Arguments.of(name, ExecutionMode.INTERPRETER, false))));
+    }
+
+    static Stream<String> roms() {
+        return GoldenRoms.all().keySet().stream();
+    }
+
+    // -------------------- Default Methods --------------------
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("roms")
+    void romMatchesListing(String name) throws IOException {
+        byte[] rom = Files.readAllBytes(GOLDEN_DIR.resolve(name + ".ch8"));
+        assertArrayEquals(GoldenRoms.all().get(name), rom,
+                "%s.ch8 differs from GoldenRoms; run gradle test -Pgolden.update=true".formatted(name));
+    }
+
+    @ParameterizedTest(name = "{0} [{1}, superinstructions {2}]")
+    @MethodSource("cases")
+    void matchesGoldenFrames(String name, ExecutionMode mode, boolean superinstructions) throws IOException {
+        String[] parts = name.split("\\.", 2);
+        byte[] rom = Files.readAllBytes(GOLDEN_DIR.resolve(parts[0] + ".ch8"));
+        InputLog log = parts.length > 1 ? InputLog.read(GOLDEN_DIR.resolve(name + ".input")) : null;
+
+        CPU cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        cpu.setExecutionMode(mode);
+        cpu.setSuperinstructions(superinstructions);
+        cpu.setHotBlockThreshold(1);
+        cpu.setCyclesPerFrame(CYCLES_PER_FRAME);
+        cpu.load(rom);
+        CountingProgram staticProgram = null;
+        if (mode == ExecutionMode.STATIC) {
+            staticProgram = new CountingProgram(staticProgram(parts[0], rom));
+            cpu.setStaticProgram(staticProgram);
+        }
+        long frames = FRAMES;
+        if (log != null) {
+            cpu.replayInput(log);
+            frames = log.getFrames();
+        } else {
+            cpu.setRandomSeed(SEED);
+        }
+
+        long[] hashes = new long[(int) (frames / CHECKPOINT_INTERVAL)];
+        long[] frame = new long[32];
+        for (int i = 0; i < hashes.length; i++) {
+            ExecutionResult result = cpu.runFrames(CHECKPOINT_INTERVAL);
+            assertEquals(ExecutionResult.OK, result, "%s stopped before frame %d".formatted(name, cpu.getFrameCount()));
+            cpu.copyFrame(frame);
+            hashes[i] = Utilities.hashFrame(frame);
+        }
+        if (mode == ExecutionMode.RECOMPILER) {
+            assertTrue(cpu.getCompiledBlocks() > 0, "%s: no block was recompiled".formatted(name));
+        } else if (staticProgram != null) {
+            assertTrue(staticProgram.executed > 0, "%s: the static program never ran".formatted(name));
+        }
+
+        if (UPDATE) {
+            String variant = superinstructions ? mode.name() : "UNFUSED";
+            recorded.computeIfAbsent(name, key -> new ConcurrentHashMap<>()).put(variant, hashes);
+            return;
+        }
+        long[] expected = goldens.get(name);
+        assertNotNull(expected, "No golden frames for %s; run gradle test -Pgolden.update=true".formatted(name));
+        assertEquals(expected.length, hashes.length, "%s: checkpoint count".formatted(name));
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != expected[i]) {
+                fail("%s first diverged at frame %d: expected %08x, was %08x"
+                        .formatted(name, (i + 1) * CHECKPOINT_INTERVAL, expected[i], hashes[i]));
+            }
+        }
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static StaticProgram staticProgram(String romName, byte[] rom) {
+        return staticPrograms.computeIfAbsent(romName, name -> {
+            try {
+                return compileStaticProgram(name, rom);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Generates the {@link StaticProgram} for {@code rom}, compiles it and defines it next to {@link CPU}, whose
+     * package-private handlers it calls.
+     */
+    private static StaticProgram compileStaticProgram(String romName, byte[] rom) throws IOException {
+        String className = "Golden" + Character.toUpperCase(romName.charAt(0)) + romName.substring(1) + "Program";
+        Path dir = Files.createTempDirectory("golden-static");
+        Path source = dir.resolve(className + ".java");
+        Files.writeString(source, StaticRecompiler.generate(rom, className, romName + ".ch8"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int status = compiler.run(null, null, null, "-d", dir.toString(),
+                "-cp", System.getProperty("java.class.path"), source.toString());
+        assertEquals(0, status, "javac failed on the static program for " + romName);
+        byte[] classBytes = Files.readAllBytes(dir.resolve("chip8/cpu/" + className + ".class"));
+        try {
+            Class<?> programClass = MethodHandles.lookup().defineClass(classBytes);
+            return (StaticProgram) programClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Static program for '%s' could not be loaded.".formatted(romName), e);
+        }
+    }
+
+    // -------------------- Inner Classes --------------------
+
+    /**
+     * Counts the instructions a shared {@link StaticProgram} executes for one run, so a run that silently fell back to
+     * the interpreter fails.
+     */
+    private static final class CountingProgram implements StaticProgram {
+
+        private final StaticProgram program;
+        private long executed;
+
+        CountingProgram(StaticProgram program) {
+            this.program = program;
+        }
+
+        @Override
+        public long romChecksum() {
+            return program.romChecksum();
+        }
+
+        @Override
+        public int run(CPU cpu, int programCounter, int budget) {
+            int count = program.run(cpu, programCounter, budget);
+            executed += count;
+            return count;
+        }
+    }
+}
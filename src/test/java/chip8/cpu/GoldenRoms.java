@@ -0,0 +1,371 @@
+package chip8.cpu;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembles the golden-frame ROMs in {@code src/test/resources/golden}. The binaries there are checked against these
+ * listings by {@link GoldenFrameTest} and rewritten from them by {@code gradle test -Pgolden.update=true}, so a change
+ * to a ROM is made here and reviewed as assembly.
+ * <p>
+ * Except for {@code random}, each ROM loops over passes that start with VC = 0x11, VD = 0xF0 and VE = 0 and add 0x3B,
+ * 0x95 and 1 to them: a pass clears the screen, draws what it computed from those operands with {@code show}, and
+ * stays on screen for six frames, so a wrong result changes the hash of the frames it is drawn in.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+final class GoldenRoms {
+
+    // -------------------- Private Statics --------------------
+
+    private static final int PROGRAM_START = 0x200;
+
+    // -------------------- Default Static Methods --------------------
+
+    /**
+     * Every ROM by name, in the order they are listed here.
+     */
+    static Map<String, byte[]> all() {
+        Map<String, byte[]> roms = new LinkedHashMap<>();
+        roms.put("arith", arith());
+        roms.put("memory", memory());
+        roms.put("sprites", sprites());
+        roms.put("timers", timers());
+        roms.put("random", random());
+        roms.put("control", control());
+        roms.put("game", game());
+        return roms;
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    /**
+     * Every 8XY_ form and a wrapping 7XNN on operands that change every pass; shows VC, VD, then each result and VF.
+     */
+    private static byte[] arith() {
+        Assembler a = new Assembler();
+        startPass(a);
+        a.op(0x80C0).call("show");                  // V0 = VC; show
+        a.op(0x80D0).call("show");                  // V0 = VD; show
+        for (int n : new int[] { 0x1, 0x2, 0x3, 0x4, 0x5, 0x6, 0x7, 0xE }) {
+            a.op(0x83C0);                           // V3 = VC
+            a.op(0x84D0);                           // V4 = VD
+            a.op(0x8340 | n);                       // V3 = V3 op V4
+            a.op(0x85F0);                           // V5 = VF
+            a.op(0x8030).call("show");              // V0 = V3; show
+            a.op(0x8050).call("show");              // V0 = V5; show
+        }
+        a.op(0x6F07);                               // VF = 7
+        a.op(0x83C0);                               // V3 = VC
+        a.op(0x73F0);                               // V3 += 0xF0, wrapping without touching VF
+        a.op(0x8030).call("show");                  // V0 = V3; show
+        a.op(0x80F0).call("show");                  // V0 = VF; show
+        endPass(a);
+        show(a);
+        scratch(a);
+        return a.build();
+    }
+
+    /**
+     * An FX55/FX65 round trip at a pass-dependent offset reached with FX1E, the values read back shown, and the font
+     * glyph of VC's low nibble drawn with FX29.
+     */
+    private static byte[] memory() {
+        Assembler a = new Assembler();
+        startPass(a);
+        a.op(0x80C0);                               // V0 = VC
+        a.op(0x8100).op(0x7125);                    // V1 = V0 + 0x25
+        a.op(0x8210).op(0x72D3);                    // V2 = V1 + 0xD3
+        a.op(0x8320).op(0x7349);                    // V3 = V2 + 0x49
+        a.op(0x84D0);                               // V4 = VD
+        a.op(0x8540).op(0x7577);                    // V5 = V4 + 0x77
+        a.ref(0xA000, "buf").op(0xF555);            // I = buf; store V0-V5
+        for (int r = 0; r < 6; r++) {
+            a.op(0x6000 | r << 8);                  // clear V0-V5
+        }
+        a.op(0x86E0).op(0x6703).op(0x8672);         // V6 = VE & 3
+        a.ref(0xA000, "buf").op(0xF61E);            // I = buf + V6
+        a.op(0xF265);                               // load V0-V2
+        a.op(0x8600).op(0x8710).op(0x8820);         // V6, V7, V8 = V0, V1, V2
+        a.op(0x8060).call("show");                  // show V6
+        a.op(0x8070).call("show");                  // show V7
+        a.op(0x8080).call("show");                  // show V8
+        a.ref(0xA000, "buf").op(0xF565);            // I = buf; load V0-V5
+        a.op(0x8630).op(0x8740).op(0x8850);         // V6, V7, V8 = V3, V4, V5
+        a.op(0x8060).call("show");                  // show V6
+        a.op(0x8070).call("show");                  // show V7
+        a.op(0x8080).call("show");                  // show V8
+        a.op(0x86C0).op(0x670F).op(0x8672);         // V6 = VC & 0xF
+        a.op(0xF629);                               // I = glyph of V6
+        a.op(0x6830).op(0x6918).op(0xD895);         // draw it at (0x30, 0x18)
+        endPass(a);
+        show(a);
+        a.label("buf").data(new int[16]);
+        scratch(a);
+        return a.build();
+    }
+
+    /**
+     * Sprites clipped and wrapped at every edge, the collision flag of erasing one and of a one-column overlap, then a
+     * counted spin, a clear and a last sprite before halting.
+     */
+    private static byte[] sprites() {
+        Assembler a = new Assembler();
+        a.op(0x6A00).op(0x6B00);                    // show's cursor at (0, 0)
+        int[][] positions = { { 0, 0 }, { 60, 0 }, { 0, 28 }, { 60, 28 }, { 70, 10 }, { 30, 40 }, { 28, 14 } };
+        for (int[] position : positions) {
+            a.ref(0xA000, "ship");                  // I = ship
+            a.op(0x6300 | position[0]);             // V3 = x
+            a.op(0x6400 | position[1]);             // V4 = y
+            a.op(0xD34F);                           // draw 15 rows
+            a.op(0x85F0);                           // V5 = VF
+        }
+        a.op(0xD34F).op(0x85F0);                    // erase the last one: V5 = VF = 1
+        a.op(0x8050).op(0x6B1A).call("show");       // show V5 at row 0x1A
+        a.ref(0xA000, "ship");                      // I = ship
+        a.op(0x6314).op(0x6402).op(0xD348);         // draw 8 rows at (0x14, 2)
+        a.op(0x6315).op(0xD348);                    // and one column to the right
+        a.op(0x80F0).call("show");                  // show VF
+        a.op(0x6700);                               // V7 = 0
+        a.label("spin").op(0x7701);                 // V7 += 1
+        a.op(0x3740).jump("spin");                  // until V7 == 0x40
+        a.op(0x00E0);                               // clear
+        a.ref(0xA000, "ship");                      // I = ship
+        a.op(0x6338).op(0x641C).op(0xD34F);         // draw at (0x38, 0x1C)
+        a.jump("end");
+        show(a);
+        a.label("end").jump("end");
+        a.label("ship").data(0x18, 0x3C, 0x7E, 0xFF, 0xDB, 0xFF, 0x7E, 0x3C,
+                0x18, 0x24, 0x42, 0x81, 0x42, 0x24, 0x18);
+        scratch(a);
+        return a.build();
+    }
+
+    /**
+     * A counter bumped and shown every six frames, waiting between updates in a delay-timer poll with the sound timer
+     * set alongside, until it reaches 100.
+     */
+    private static byte[] timers() {
+        Assembler a = new Assembler();
+        a.op(0x6500);                               // V5 = 0
+        a.label("loop").op(0x6606);                 // V6 = 6
+        a.op(0xF615).op(0xF618);                    // delay = sound = V6
+        a.label("poll").op(0xF707);                 // V7 = delay
+        a.op(0x3700).jump("poll");                  // until V7 == 0
+        a.op(0x7501);                               // V5 += 1
+        a.op(0x00E0);                               // clear
+        a.op(0x6A10).op(0x6B0C);                    // show's cursor at (0x10, 0x0C)
+        a.op(0x8050).call("show");                  // show V5
+        a.op(0x3564).jump("loop");                  // until V5 == 100
+        a.jump("end");
+        show(a);
+        a.label("end").jump("end");
+        scratch(a);
+        return a.build();
+    }
+
+    /**
+     * Seeded CXNN scattering dots masked to the screen. The loop is seven instructions, so at eight cycles per frame
+     * the static recompiler's block fits the budget left in some frames.
+     */
+    private static byte[] random() {
+        Assembler a = new Assembler();
+        a.ref(0xA000, "dot");                       // I = dot
+        a.label("loop").op(0xC13F);                 // V1 = rand & 0x3F
+        a.op(0xC21F);                               // V2 = rand & 0x1F
+        a.op(0xD121);                               // draw one row at (V1, V2)
+        a.op(0xC3FF);                               // V3 = rand
+        a.op(0x8030);                               // V0 = V3
+        a.op(0x6A00);                               // VA = 0
+        a.jump("loop");
+        a.label("dot").data(0x80);
+        return a.build();
+    }
+
+    /**
+     * Skips on pass-dependent values, each taken skip leaving a bit of a mask in V8 clear; calls nested three deep,
+     * each level adding its bits to V7 on the way in and out; and a BNNN jump into a table at 4 * (VC & 3).
+     */
+    private static byte[] control() {
+        Assembler a = new Assembler();
+        startPass(a);
+        a.op(0x83C0).op(0x6503).op(0x8352);         // V3 = VC & 3
+        a.op(0x84D0).op(0x8452);                    // V4 = VD & 3
+        a.op(0x6800);                               // V8 = 0
+        a.op(0x3302).op(0x7801);                    // skip if V3 == 2, else V8 |= 0x01
+        a.op(0x4301).op(0x7802);                    // skip if V3 != 1, else V8 |= 0x02
+        a.op(0x5340).op(0x7804);                    // skip if V3 == V4, else V8 |= 0x04
+        a.op(0x9340).op(0x7808);                    // skip if V3 != V4, else V8 |= 0x08
+        a.op(0x3300).op(0x7810);                    // skip if V3 == 0, else V8 |= 0x10
+        a.op(0x4400).op(0x7820);                    // skip if V4 != 0, else V8 |= 0x20
+        a.op(0x8030).call("show");                  // show V3
+        a.op(0x8040).call("show");                  // show V4
+        a.op(0x8080).call("show");                  // show V8
+        a.op(0x6700).call("depth1");                // V7 = 0; call depth1
+        a.op(0x8070).call("show");                  // show V7
+        a.op(0x8030).op(0x8004).op(0x8004);         // V0 = V3 * 4
+        a.ref(0xB000, "table");                     // jump to table + V0
+        a.label("back").op(0x8060).call("show");    // show V6
+        endPass(a);
+        a.label("depth1").op(0x7701);               // V7 += 0x01
+        a.call("depth2").op(0x7710).op(0x00EE);     // call depth2; V7 += 0x10; return
+        a.label("depth2").op(0x7702);               // V7 += 0x02
+        a.call("depth3").op(0x7720).op(0x00EE);     // call depth3; V7 += 0x20; return
+        a.label("depth3").op(0x7704).op(0x00EE);    // V7 += 0x04; return
+        a.label("table");
+        for (int value : new int[] { 0x0B, 0x16, 0x21, 0x2C }) {
+            a.op(0x6600 | value).jump("back");      // V6 = value; jump back
+        }
+        show(a);
+        scratch(a);
+        return a.build();
+    }
+
+    /**
+     * A ball steered with keys 2, 4, 6 and 8, moving every other frame. Key 5, once released, waits for a key with
+     * FX0A and prints it along the top. The move is worked out before waiting for the next frame, so erasing and
+     * redrawing never straddle a frame boundary.
+     */
+    private static byte[] game() {
+        Assembler a = new Assembler();
+        a.op(0x611C).op(0x620C);                    // ball at (V1, V2) = (0x1C, 0x0C)
+        a.op(0x6800).op(0x6900);                    // printed keys' cursor at (V8, V9) = (0, 0)
+        a.ref(0xA000, "ball").op(0xD125);           // draw the ball
+        a.label("loop").op(0x8310).op(0x8420);      // (V3, V4) = (V1, V2)
+        a.op(0x6704).op(0xE7A1).op(0x73FF);         // key 4 down: V3 -= 1
+        a.op(0x6706).op(0xE7A1).op(0x7301);         // key 6 down: V3 += 1
+        a.op(0x6702).op(0xE7A1).op(0x74FF);         // key 2 down: V4 -= 1
+        a.op(0x6708).op(0xE7A1).op(0x7401);         // key 8 down: V4 += 1
+        a.op(0x6705).op(0xE79E).jump("pace");       // key 5 up: go on
+        a.label("held").op(0xE7A1).jump("held");    // wait for key 5 to be released
+        a.op(0xF50A);                               // V5 = next key
+        a.op(0xF529).op(0xD895).op(0x7805);         // print it at (V8, V9); V8 += 5
+        a.label("pace").op(0x6602).op(0xF615);      // delay = 2
+        a.label("wait").op(0xF607);                 // V6 = delay
+        a.op(0x3600).jump("wait");                  // until V6 == 0
+        a.ref(0xA000, "ball");                      // I = ball
+        a.op(0xD125).op(0xD345);                    // erase at (V1, V2), draw at (V3, V4)
+        a.op(0x8130).op(0x8240).jump("loop");       // (V1, V2) = (V3, V4)
+        a.label("ball").data(0x70, 0xF8, 0xF8, 0xF8, 0x70);
+        return a.build();
+    }
+
+    private static void startPass(Assembler a) {
+        a.op(0x6C11).op(0x6DF0).op(0x6E00);         // VC = 0x11, VD = 0xF0, VE = 0
+        a.label("pass").op(0x00E0);                 // clear
+        a.op(0x6A00).op(0x6B00);                    // show's cursor at (0, 0)
+    }
+
+    private static void endPass(Assembler a) {
+        a.op(0x6906).op(0xF915);                    // delay = 6
+        a.label("pace").op(0xF907);                 // V9 = delay
+        a.op(0x3900).jump("pace");                  // until V9 == 0
+        a.op(0x7C3B).op(0x7D95).op(0x7E01);         // VC += 0x3B, VD += 0x95, VE += 1
+        a.jump("pass");
+    }
+
+    /**
+     * Draws V0 as three decimal digits at (VA, VB) and moves the cursor on, four numbers to a row. Clobbers V0-V2
+     * and I.
+     */
+    private static void show(Assembler a) {
+        a.label("show").ref(0xA000, "scratch");     // I = scratch
+        a.op(0xF033).op(0xF265);                    // BCD of V0; load V0-V2
+        a.op(0xF029).op(0xDAB5).op(0x7A05);         // hundreds
+        a.op(0xF129).op(0xDAB5).op(0x7A05);         // tens
+        a.op(0xF229).op(0xDAB5).op(0x7A06);         // units
+        a.op(0x4A40).jump("newline");               // VA == 0x40: next row
+        a.op(0x00EE);
+        a.label("newline").op(0x6A00);              // VA = 0
+        a.op(0x7B06).op(0x00EE);                    // VB += 6; return
+    }
+
+    private static void scratch(Assembler a) {
+        a.label("scratch").data(new int[16]);
+    }
+
+    // -------------------- Inner Classes --------------------
+
+    /**
+     * Two-pass assembler: opcodes that take an address refer to labels, which are resolved when the ROM is built.
+     */
+    private static final class Assembler {
+
+        private final List<Object> items = new ArrayList<>();
+        private final Map<String, Integer> labels = new HashMap<>();
+        private int address = PROGRAM_START;
+
+        Assembler label(String name) {
+            if (labels.putIfAbsent(name, address) != null) {
+                throw new IllegalArgumentException("Duplicate label: " + name);
+            }
+            return this;
+        }
+
+        Assembler op(int opcode) {
+            items.add(opcode);
+            address += 2;
+            return this;
+        }
+
+        /**
+         * An opcode whose NNN is the address of {@code label}.
+         */
+        Assembler ref(int opcode, String label) {
+            items.add(new Ref(opcode, label));
+            address += 2;
+            return this;
+        }
+
+        Assembler jump(String label) {
+            return ref(0x1000, label);
+        }
+
+        Assembler call(String label) {
+            return ref(0x2000, label);
+        }
+
+        Assembler data(int... bytes) {
+            byte[] data = new byte[bytes.length];
+            for (int i = 0; i < bytes.length; i++) {
+                data[i] = (byte) bytes[i];
+            }
+            items.add(data);
+            address += data.length;
+            return this;
+        }
+
+        byte[] build() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (Object item : items) {
+                if (item instanceof byte[] data) {
+                    out.writeBytes(data);
+                    continue;
+                }
+                int opcode;
+                if (item instanceof Ref ref) {
+                    Integer target = labels.get(ref.label());
+                    if (target == null) {
+                        throw new IllegalArgumentException("Unknown label: " + ref.label());
+                    }
+                    opcode = ref.opcode() | target;
+                } else {
+                    opcode = (Integer) item;
+                }
+                out.write(opcode >> 8);
+                out.write(opcode);
+            }
+            return out.toByteArray();
+        }
+
+        private record Ref(int opcode, String label) {}
+    }
+
+    // -------------------- Constructors --------------------
+
+    private GoldenRoms() {}
+}
@@ -0,0 +1,144 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Records a session the way the emulation thread drives it, including single steps that stop in the middle of a frame
+ * and keys changing while paused, then replays the log headless with {@link CPU#runFrames(int)} in each execution mode
+ * and expects the exact same machine state. A replay that fast-forwards through delay-timer polls across changes of
+ * cycles per frame must also end where running frame by frame did, and loading another ROM ends a recording.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+class InputReplayTest {
+
+    // -------------------- Private Statics --------------------
+
+    private static final Path ROM = Path.of("src/test/resources/golden/game.ch8");
+    private static final int CYCLES_PER_FRAME = 8;
+
+    // -------------------- Default Methods --------------------
+
+    @ParameterizedTest(name = "{0} steps")
+    @ValueSource(ints = { 3, 8, 13 })
+    void replayMatchesSessionWithSingleSteps(int steps) throws IOException {
+        byte[] rom = Files.readAllBytes(ROM);
+        VirtualKeypad keypad = new VirtualKeypad();
+        CPU cpu = new CPU(keypad, AudioDevice.NONE);
+        cpu.setCyclesPerFrame(CYCLES_PER_FRAME);
+        cpu.load(rom);
+        InputLog log = new InputLog(42);
+        cpu.recordInput(log);
+
+        runBatches(cpu, 20);
+        keypad.press(6);
+        runBatches(cpu, 10);
+        cpu.setShouldWait(true);
+        step(cpu, steps);
+        keypad.release(6);
+        keypad.press(2);
+        step(cpu, steps);
+        cpu.setShouldWait(false);
+        runBatches(cpu, 30);
+        keypad.release(2);
+        cpu.setShouldWait(true);
+        step(cpu, steps);
+        cpu.setShouldWait(false);
+        runBatches(cpu, 30);
+        cpu.stopInput();
+        SaveState recorded = new SaveState();
+        cpu.saveState(recorded);
+
+        for (ExecutionMode mode : new ExecutionMode[] {
+                ExecutionMode.INTERPRETER, ExecutionMode.BLOCK_CACHE, ExecutionMode.RECOMPILER }) {
+            CPU replay = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+            replay.setExecutionMode(mode);
+            replay.setHotBlockThreshold(1);
+            replay.load(rom);
+            replay.replayInput(log);
+            replay.runFrames((int) log.getFrames());
+            SaveState replayed = new SaveState();
+            replay.saveState(replayed);
+            assertArrayEquals(recorded.toByteArray(), replayed.toByteArray(), "replay in " + mode);
+        }
+    }
+
+    @ParameterizedTest(name = "{0} cycles per frame")
+    @ValueSource(ints = { 3, 7, 13 })
+    void fastForwardedDelayPollMatchesFrameByFrame(int changedCycles) {
+        // V0 = 40; delay = V0; poll the timer until it expires; V1 += 1; again
+        byte[] rom = {
+                0x60, 0x28, (byte) 0xF0, 0x15, (byte) 0xF0, 0x07, 0x30, 0x00, 0x12, 0x04, 0x71, 0x01, 0x12, 0x00
+        };
+        CPU cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        cpu.setCyclesPerFrame(CYCLES_PER_FRAME);
+        cpu.load(rom);
+        InputLog log = new InputLog(7);
+        cpu.recordInput(log);
+        for (int frame = 0; frame < 200; frame++) {
+            if (frame % 25 == 10) {
+                cpu.setCyclesPerFrame(frame % 50 == 10 ? changedCycles : CYCLES_PER_FRAME);
+            }
+            cpu.runFrame();
+        }
+        cpu.stopInput();
+        SaveState recorded = new SaveState();
+        cpu.saveState(recorded);
+
+        for (ExecutionMode mode : new ExecutionMode[] {
+                ExecutionMode.INTERPRETER, ExecutionMode.BLOCK_CACHE, ExecutionMode.RECOMPILER }) {
+            CPU replay = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+            replay.setExecutionMode(mode);
+            replay.load(rom);
+            replay.replayInput(log);
+            replay.runFrames((int) log.getFrames());
+            SaveState replayed = new SaveState();
+            replay.saveState(replayed);
+            assertArrayEquals(recorded.toByteArray(), replayed.toByteArray(), "fast-forwarded replay in " + mode);
+        }
+    }
+
+    @Test
+    void loadingAnotherRomEndsTheRecording() throws IOException {
+        byte[] rom = Files.readAllBytes(ROM);
+        CPU cpu = new CPU(new VirtualKeypad(), AudioDevice.NONE);
+        cpu.setCyclesPerFrame(CYCLES_PER_FRAME);
+        cpu.load(rom);
+        InputLog log = new InputLog(42);
+        cpu.recordInput(log);
+        cpu.runFrames(10);
+
+        cpu.load(rom);
+        cpu.setCyclesPerFrame(CYCLES_PER_FRAME * 2);
+        cpu.runFrames(20);
+        assertEquals(10, log.getFrames());
+        assertEquals(CYCLES_PER_FRAME * 2, cpu.getCyclesPerFrame(), "a new clock applies at once without a recording");
+    }
+
+    // -------------------- Private Static Methods --------------------
+
+    private static void runBatches(CPU cpu, int batches) {
+        for (int i = 0; i < batches; i++) {
+            cpu.runCommands();
+            cpu.runNextBatch();
+        }
+    }
+
+    private static void step(CPU cpu, int steps) {
+        for (int i = 0; i < steps; i++) {
+            cpu.endWait();
+        }
+        runBatches(cpu, 1);
+    }
+}
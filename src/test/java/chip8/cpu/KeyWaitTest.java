@@ -0,0 +1,56 @@
+package chip8.cpu;
+
+import chip8.hardware.AudioDevice;
+import chip8.hardware.VirtualKeypad;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Drives a recorded session the way the emulation thread does and checks that a key pressed while the program waits
+ * in FX0A reaches the screen within two frames, without the thread being allowed to sleep in between.
+ *
+ * @author Scott Faria <scott.faria@protonmail.com>
+ */
+class KeyWaitTest {
+
+    // -------------------- Private Statics --------------------
+
+    // F00A; A000; D005; 1206: wait for a key, then draw the font's 0 and stop there
+    private static final byte[] ROM = {
+            (byte) 0xF0, 0x0A, (byte) 0xA0, 0x00, (byte) 0xD0, 0x05, 0x12, 0x06
+    };
+    private static final int CYCLES_PER_FRAME = 8;
+
+    // -------------------- Default Methods --------------------
+
+    @Test
+    void keyPressDuringWaitDrawsWithinTwoFrames() {
+        VirtualKeypad keypad = new VirtualKeypad();
+        CPU cpu = new CPU(keypad, AudioDevice.NONE);
+        cpu.setCyclesPerFrame(CYCLES_PER_FRAME);
+        cpu.load(ROM);
+        cpu.recordInput(new InputLog(0));
+
+        for (int i = 0; i < 5; i++) {
+            cpu.runNextBatch();
+        }
+        assertTrue(cpu.canIdle(), "waiting for a key");
+
+        keypad.press(1);
+        long[] frame = new long[32];
+        for (int i = 0; i < 2; i++) {
+            cpu.runNextBatch();
+            cpu.copyFrame(frame);
+            if (Arrays.stream(frame).anyMatch(row -> row != 0)) {
+                return;
+            }
+            assertFalse(cpu.canIdle(), "sleeping with a key press not yet seen by the program");
+        }
+        fail("key press not drawn within two frames");
+    }
+}